@@ -0,0 +1,100 @@
+import de.uniwue.vnfcpBench.model.CsrGraph;
+import de.uniwue.vnfcpBench.model.NetworkGraph;
+import de.uniwue.vnfcpBench.model.Node;
+import de.uniwue.vnfcpBench.model.ShortestPathTree;
+import de.uniwue.vnfcpBench.solvers.bruteForce.FlowUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares the HashMap-based {@link FlowUtils#dijkstra(Node)} with the indexed-heap search on
+ * {@link CsrGraph} ids on a grid topology with random delays: time and allocated bytes per search,
+ * and whether both find the same delays and hops. Also measures bidirectional point-to-point queries
+ * ({@link FlowUtils#distance(CsrGraph, int, int, boolean)}) between each source and a random target.
+ */
+public class DijkstraBenchmark {
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+
+        int side = (args.length > 0) ? Integer.parseInt(args[0]) : 100;
+        int numSources = (args.length > 1) ? Integer.parseInt(args[1]) : 50;
+
+        // side x side grid with delays 1..10, so there are few ties:
+        Random rand = new Random(42);
+        NetworkGraph ng = new NetworkGraph();
+        Node[][] grid = new Node[side][side];
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                grid[i][j] = ng.addNode(i + "_" + j, 0.0, 0.0, 0.0);
+                if (i > 0) ng.addLink(grid[i - 1][j], grid[i][j], 1000.0, 1.0 + rand.nextInt(10));
+                if (j > 0) ng.addLink(grid[i][j - 1], grid[i][j], 1000.0, 1.0 + rand.nextInt(10));
+            }
+        }
+        CsrGraph g = ng.getCsr();
+        int[] sources = new int[numSources];
+        int[] targets = new int[numSources];
+        for (int k = 0; k < numSources; k++) {
+            sources[k] = rand.nextInt(g.getNumNodes());
+            targets[k] = rand.nextInt(g.getNumNodes());
+        }
+
+        System.out.println("nodes,links,variant,ms_per_search,kb_per_search,mismatches");
+        for (int run = 0; run < 3; run++) {
+            // Warm-up in the first run:
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            int mismatches = 0;
+            for (int s : sources) {
+                HashMap<Node, Node.Att> att = FlowUtils.dijkstra(g.getNode(s));
+                if (att.size() != g.getNumNodes()) mismatches++;
+            }
+            print(g, "hashmap", start, bytes, numSources, mismatches);
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            for (int s : sources) {
+                FlowUtils.dijkstra(g, s);
+            }
+            print(g, "indexed_heap", start, bytes, numSources, 0);
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            for (int k = 0; k < numSources; k++) {
+                FlowUtils.distance(g, sources[k], targets[k], true);
+            }
+            print(g, "bidirectional", start, bytes, numSources, 0);
+        }
+
+        // Same delays and hops (paths may differ among ties):
+        int mismatches = 0;
+        for (int k = 0; k < numSources; k++) {
+            HashMap<Node, Node.Att> att = FlowUtils.dijkstra(g.getNode(sources[k]));
+            ShortestPathTree t = FlowUtils.dijkstra(g, sources[k]);
+            for (int v = 0; v < g.getNumNodes(); v++) {
+                if (att.get(g.getNode(v)).delay != t.delay[v]) mismatches++;
+            }
+            if (FlowUtils.distance(g, sources[k], targets[k], true) != t.delay[targets[k]]) mismatches++;
+        }
+        System.out.println("Delay mismatches: " + mismatches);
+    }
+
+    private static void print(CsrGraph g, String variant, long start, long bytes, int numSources, int mismatches) {
+        double ms = (System.nanoTime() - start) / 1e6 / numSources;
+        double kb = (allocatedBytes() - bytes) / 1024.0 / numSources;
+        System.out.println(String.format("%d,%d,%s,%.2f,%.0f,%d", g.getNumNodes(), g.getNumLinks(), variant, ms, kb, mismatches));
+    }
+
+    /**
+     * @return Bytes allocated by this thread so far (or 0, if the JVM cannot tell).
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,89 @@
+import de.uniwue.vnfcpBench.model.CsrGraph;
+import de.uniwue.vnfcpBench.model.NetworkGraph;
+import de.uniwue.vnfcpBench.model.Node;
+import de.uniwue.vnfcpBench.solvers.bruteForce.FlowUtils;
+import de.uniwue.vnfcpBench.solvers.bruteForce.LandmarkOracle;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares point-to-point distance queries on a large grid topology with random delays:
+ * a full Dijkstra search, the bidirectional search of {@link FlowUtils#distance(CsrGraph, int, int, boolean)}
+ * and the A* search of a {@link LandmarkOracle}; reports the oracle's memory, the time per query,
+ * how close its lower bounds are, and whether all variants find the same delays.
+ */
+public class LandmarkBenchmark {
+    public static void main(String[] args) {
+        Locale.setDefault(Locale.US);
+
+        int side = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        int numLandmarks = (args.length > 1) ? Integer.parseInt(args[1]) : 16;
+        int numQueries = (args.length > 2) ? Integer.parseInt(args[2]) : 200;
+
+        // side x side grid with delays 1..10:
+        Random rand = new Random(42);
+        NetworkGraph ng = new NetworkGraph();
+        Node[][] grid = new Node[side][side];
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                grid[i][j] = ng.addNode(i + "_" + j, 0.0, 0.0, 0.0);
+                if (i > 0) ng.addLink(grid[i - 1][j], grid[i][j], 1000.0, 1.0 + rand.nextInt(10));
+                if (j > 0) ng.addLink(grid[i][j - 1], grid[i][j], 1000.0, 1.0 + rand.nextInt(10));
+            }
+        }
+        CsrGraph g = ng.getCsr();
+        int[] sources = new int[numQueries];
+        int[] targets = new int[numQueries];
+        for (int q = 0; q < numQueries; q++) {
+            sources[q] = rand.nextInt(g.getNumNodes());
+            targets[q] = rand.nextInt(g.getNumNodes());
+        }
+
+        LandmarkOracle oracle = new LandmarkOracle(ng, true, numLandmarks);
+        System.out.println(String.format("Landmark oracle with %d landmarks for %d nodes: %.1f MB, built in %d ms.",
+                oracle.getLandmarks().length, g.getNumNodes(), oracle.getMemoryBytes() / 1e6, oracle.getBuildMillis()));
+
+        System.out.println("nodes,landmarks,variant,ms_per_query,mismatches");
+        double[] exact = new double[numQueries];
+        for (int run = 0; run < 3; run++) {
+            // Warm-up in the first run:
+            long start = System.nanoTime();
+            for (int q = 0; q < numQueries; q++) {
+                exact[q] = FlowUtils.dijkstra(g, sources[q]).delay[targets[q]];
+            }
+            print(g, oracle, "dijkstra", start, numQueries, 0);
+
+            start = System.nanoTime();
+            int mismatches = 0;
+            for (int q = 0; q < numQueries; q++) {
+                if (FlowUtils.distance(g, sources[q], targets[q], true) != exact[q]) mismatches++;
+            }
+            print(g, oracle, "bidirectional", start, numQueries, mismatches);
+
+            start = System.nanoTime();
+            mismatches = 0;
+            for (int q = 0; q < numQueries; q++) {
+                if (oracle.distance(sources[q], targets[q]) != exact[q]) mismatches++;
+            }
+            print(g, oracle, "alt", start, numQueries, mismatches);
+        }
+
+        // Quality of the bounds alone:
+        double ratio = 0.0;
+        long start = System.nanoTime();
+        for (int q = 0; q < numQueries; q++) {
+            double bound = oracle.lowerBound(sources[q], targets[q]);
+            ratio += (exact[q] > 0.0) ? bound / exact[q] : 1.0;
+        }
+        double boundMicros = (System.nanoTime() - start) / 1e3 / numQueries;
+        System.out.println(String.format("Lower bound: %.2f us per query, %.1f%% of the distance on average.",
+                boundMicros, 100.0 * ratio / numQueries));
+        System.out.println(oracle);
+    }
+
+    private static void print(CsrGraph g, LandmarkOracle oracle, String variant, long start, int numQueries, int mismatches) {
+        double ms = (System.nanoTime() - start) / 1e6 / numQueries;
+        System.out.println(String.format("%d,%d,%s,%.3f,%d", g.getNumNodes(), oracle.getLandmarks().length, variant, ms, mismatches));
+    }
+}
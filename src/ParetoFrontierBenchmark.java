@@ -0,0 +1,85 @@
+import de.uniwue.vnfcpBench.model.solution.BiObjectiveParetoFrontier;
+import de.uniwue.vnfcpBench.model.solution.ConcurrentParetoFrontier;
+import de.uniwue.vnfcpBench.model.solution.GridGraphSolution;
+import de.uniwue.vnfcpBench.model.solution.ParetoFrontier;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+/**
+ * Measures how a shared Pareto Frontier scales with the number of producer threads:
+ * one lock around a {@link BiObjectiveParetoFrontier} against the lock-free {@link ConcurrentParetoFrontier}.
+ * All threads together insert the same random candidates, so the work is constant.
+ */
+public class ParetoFrontierBenchmark {
+    public static void main(String[] args) throws Exception {
+        Locale.setDefault(Locale.US);
+
+        int numCandidates = (args.length > 0) ? Integer.parseInt(args[0]) : 4_000_000;
+        int maxThreads = (args.length > 1) ? Integer.parseInt(args[1]) : 64;
+
+        // (cpu, hops) trade-off with noise, so about 0.1% of the candidates are non-dominated at some point:
+        Random rand = new Random(42);
+        GridGraphSolution[] candidates = new GridGraphSolution[numCandidates];
+        for (int i = 0; i < numCandidates; i++) {
+            double cpu = rand.nextInt(1000);
+            candidates[i] = new GridGraphSolution(null, cpu, 1000 - cpu + rand.nextInt(200));
+        }
+
+        System.out.println("threads,locked_ms,locked_mcand_per_s,lockfree_ms,lockfree_mcand_per_s,filtered,inserted,retries,size");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            // Warm-up, then measure:
+            double locked = 0.0, lockFree = 0.0;
+            ConcurrentParetoFrontier<GridGraphSolution> cpf = null;
+            for (int run = 0; run < 2; run++) {
+                ParetoFrontier<GridGraphSolution> pf = new BiObjectiveParetoFrontier<>();
+                locked = run(candidates, threads, s -> {
+                    synchronized (pf) {
+                        pf.updateParetoFrontier(s);
+                    }
+                });
+
+                ConcurrentParetoFrontier<GridGraphSolution> c = new ConcurrentParetoFrontier<>();
+                lockFree = run(candidates, threads, c::updateParetoFrontier);
+                cpf = c;
+            }
+
+            System.out.println(String.format("%d,%.1f,%.2f,%.1f,%.2f,%d,%d,%d,%d",
+                    threads, locked, numCandidates / locked / 1000.0, lockFree, numCandidates / lockFree / 1000.0,
+                    cpf.getFilteredCount(), cpf.getInsertedCount(), cpf.getRetryCount(), cpf.size()));
+        }
+    }
+
+    /**
+     * @return Milliseconds until all threads have processed their share of the candidates.
+     */
+    private static double run(GridGraphSolution[] candidates, int threads, Consumer<GridGraphSolution> update) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int from = (int) ((long) t * candidates.length / threads);
+            int to = (int) ((long) (t + 1) * candidates.length / threads);
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = from; i < to; i++) {
+                    update.accept(candidates[i]);
+                }
+            });
+            workers[t].start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+        return (System.nanoTime() - begin) / 1e6;
+    }
+}
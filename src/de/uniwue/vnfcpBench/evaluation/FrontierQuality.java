@@ -0,0 +1,67 @@
+package de.uniwue.vnfcpBench.evaluation;
+
+import java.util.Arrays;
+
+/**
+ * Quality of a candidate frontier, compared with a reference frontier (all objectives are minimized).
+ */
+public class FrontierQuality {
+    public static final String CSV_HEADER = "hypervolume,reference_hypervolume,hypervolume_ratio,igd,gd,epsilon";
+
+    /**
+     * Point that bounds the hypervolumes.
+     */
+    public final double[] referencePoint;
+    /**
+     * Hypervolume of the candidate and of the reference frontier.
+     */
+    public final double hypervolume, referenceHypervolume;
+    /**
+     * Inverted generational distance: mean distance of each reference point to the closest candidate point.
+     */
+    public final double igd;
+    /**
+     * Generational distance: mean distance of each candidate point to the closest reference point.
+     */
+    public final double gd;
+    /**
+     * Additive epsilon indicator: smallest amount by which the candidate has to be shifted
+     * in all objectives, so that it weakly dominates every reference point.
+     */
+    public final double epsilon;
+
+    public FrontierQuality(double[] referencePoint, double hypervolume, double referenceHypervolume, double igd, double gd, double epsilon) {
+        this.referencePoint = referencePoint;
+        this.hypervolume = hypervolume;
+        this.referenceHypervolume = referenceHypervolume;
+        this.igd = igd;
+        this.gd = gd;
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * @return Hypervolume of the candidate, divided by the one of the reference (1 = as good as the reference).
+     */
+    public double getHypervolumeRatio() {
+        return (referenceHypervolume > 0.0) ? hypervolume / referenceHypervolume : Double.NaN;
+    }
+
+    /**
+     * @return Comma-separated values in the order of {@link #CSV_HEADER}.
+     */
+    public String toCsv() {
+        return hypervolume + "," + referenceHypervolume + "," + getHypervolumeRatio() + "," + igd + "," + gd + "," + epsilon;
+    }
+
+    @Override
+    public String toString() {
+        return "FrontierQuality{" +
+                "referencePoint=" + Arrays.toString(referencePoint) +
+                ", hypervolume=" + hypervolume +
+                ", referenceHypervolume=" + referenceHypervolume +
+                ", igd=" + igd +
+                ", gd=" + gd +
+                ", epsilon=" + epsilon +
+                '}';
+    }
+}
@@ -0,0 +1,277 @@
+package de.uniwue.vnfcpBench.evaluation;
+
+import de.uniwue.vnfcpBench.model.solution.Solution;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Quality indicators that compare a candidate frontier (e.g. of a heuristic) with a reference frontier
+ * (e.g. the optimum from {@link de.uniwue.vnfcpBench.generators.ProblemGenerator#getSolutions}).
+ * All objectives are minimized, and all frontiers need the same number of objectives.
+ * <p>
+ * The hypervolume is exact: a sweep for two objectives and the WFG algorithm
+ * (While, Bradstreet and Barone, IEEE TEVC 2012) for more.
+ */
+public class QualityIndicators {
+    private QualityIndicators() {
+    }
+
+    /**
+     * Computes all indicators for one pair of frontiers.
+     *
+     * @param reference      Reference frontier (not empty).
+     * @param candidate      Candidate frontier.
+     * @param referencePoint Point that bounds the hypervolumes (worse than all relevant points).
+     * @return Indicators.
+     */
+    public static FrontierQuality evaluate(Collection<? extends Solution> reference, Collection<? extends Solution> candidate, double[] referencePoint) {
+        double[][] ref = toPoints(reference);
+        double[][] cand = toPoints(candidate);
+        if (ref.length == 0) {
+            throw new IllegalArgumentException("reference is empty");
+        }
+        return new FrontierQuality(referencePoint.clone(),
+                hypervolume(cand, referencePoint), hypervolume(ref, referencePoint),
+                igd(ref, cand), gd(ref, cand), additiveEpsilon(ref, cand));
+    }
+
+    /**
+     * Computes all indicators for many pairs of frontiers in parallel.
+     * The reference point of each pair is the worst value of each objective in both frontiers plus {@code offset},
+     * so that the extreme points contribute to the hypervolume, too.
+     *
+     * @param references Reference frontiers.
+     * @param candidates Candidate frontiers (same number and order as the references).
+     * @param offset     Added to the worst value of each objective (e.g. 1.0).
+     * @return Indicators of each pair, in the same order.
+     */
+    public static FrontierQuality[] evaluateAll(List<? extends Collection<? extends Solution>> references,
+                                                List<? extends Collection<? extends Solution>> candidates, double offset) {
+        if (references.size() != candidates.size()) {
+            throw new IllegalArgumentException("references.size() = " + references.size() + ", candidates.size() = " + candidates.size());
+        }
+        return IntStream.range(0, references.size()).parallel()
+                .mapToObj(i -> evaluate(references.get(i), candidates.get(i),
+                        getReferencePoint(references.get(i), candidates.get(i), offset)))
+                .toArray(FrontierQuality[]::new);
+    }
+
+    /**
+     * @return Worst value of each objective in both frontiers, plus the offset.
+     */
+    public static double[] getReferencePoint(Collection<? extends Solution> reference, Collection<? extends Solution> candidate, double offset) {
+        double[] worst = null;
+        for (Collection<? extends Solution> c : Arrays.asList(reference, candidate)) {
+            for (Solution s : c) {
+                if (worst == null) {
+                    worst = new double[s.getNumObj()];
+                    Arrays.fill(worst, Double.NEGATIVE_INFINITY);
+                }
+                for (int k = 0; k < worst.length; k++) {
+                    worst[k] = Math.max(worst[k], s.getObj(k));
+                }
+            }
+        }
+        if (worst == null) {
+            throw new IllegalArgumentException("Both frontiers are empty");
+        }
+        for (int k = 0; k < worst.length; k++) {
+            worst[k] += offset;
+        }
+        return worst;
+    }
+
+    /**
+     * Hypervolume of the region that the points dominate and that dominates the reference point.
+     * Points that do not dominate the reference point strictly do not contribute.
+     *
+     * @param points         Objective vectors (need not be non-dominated).
+     * @param referencePoint Reference point.
+     * @return Hypervolume.
+     */
+    public static double hypervolume(double[][] points, double[] referencePoint) {
+        int n = 0;
+        double[][] inside = new double[points.length][];
+        for (double[] p : points) {
+            if (strictlyDominates(p, referencePoint)) inside[n++] = p;
+        }
+        double[][] front = nonDominated(inside, n);
+        if (front.length == 0) return 0.0;
+
+        if (referencePoint.length == 1) return referencePoint[0] - front[0][0];
+        return wfg(front, referencePoint);
+    }
+
+    /**
+     * WFG algorithm (While, Bradstreet and Barone, IEEE TEVC 16(1), 2012), which slices the volume along the
+     * last objective: after sorting the points from the worst to the best last objective, each point adds
+     * the volume that it dominates exclusively in the other objectives, i.e. its inclusive volume minus the
+     * volume of the limit set (the points after it, each limited to the region that the point dominates),
+     * times its distance to the reference point in the last objective.
+     * The limit sets are reduced to their non-dominated points before they are computed recursively,
+     * in one objective less, down to a sweep in two objectives.
+     *
+     * @param front Non-dominated points, sorted lexicographically (only their length is used as the number of
+     *              objectives, so the reference point may have more).
+     */
+    private static double wfg(double[][] front, double[] referencePoint) {
+        int d = front[0].length;
+        if (front.length == 1) return inclusive(front[0], referencePoint, d);
+        if (d == 2) return sweep2d(front, referencePoint);
+
+        double[][] sorted = front.clone();
+        Arrays.sort(sorted, (p, q) -> Double.compare(q[d - 1], p[d - 1]));
+
+        double volume = 0.0;
+        for (int i = 0; i < sorted.length; i++) {
+            double[] p = sorted[i];
+            double exclusive = inclusive(p, referencePoint, d - 1);
+            if (i + 1 < sorted.length) {
+                double[][] limited = new double[sorted.length - i - 1][];
+                for (int j = i + 1; j < sorted.length; j++) {
+                    double[] l = new double[d - 1];
+                    for (int k = 0; k < l.length; k++) {
+                        l[k] = Math.max(p[k], sorted[j][k]);
+                    }
+                    limited[j - i - 1] = l;
+                }
+                exclusive -= wfg(nonDominated(limited, limited.length), referencePoint);
+            }
+            volume += exclusive * (referencePoint[d - 1] - p[d - 1]);
+        }
+        return volume;
+    }
+
+    /**
+     * @param front Non-dominated points, sorted by the first objective (so the second one decreases).
+     */
+    private static double sweep2d(double[][] front, double[] referencePoint) {
+        double volume = 0.0;
+        double lastY = referencePoint[1];
+        for (double[] p : front) {
+            volume += (referencePoint[0] - p[0]) * (lastY - p[1]);
+            lastY = p[1];
+        }
+        return volume;
+    }
+
+    private static double inclusive(double[] p, double[] referencePoint, int d) {
+        double volume = 1.0;
+        for (int k = 0; k < d; k++) {
+            volume *= referencePoint[k] - p[k];
+        }
+        return volume;
+    }
+
+    /**
+     * Removes dominated and duplicate points.
+     *
+     * @return Non-dominated points, sorted lexicographically.
+     */
+    private static double[][] nonDominated(double[][] points, int count) {
+        double[][] sorted = Arrays.copyOf(points, count);
+        Arrays.sort(sorted, LEXICOGRAPHIC);
+
+        // A point can only be dominated by a point that comes before it:
+        int n = 0;
+        for (double[] p : sorted) {
+            boolean dominated = false;
+            for (int i = 0; i < n && !dominated; i++) {
+                dominated = weaklyDominates(sorted[i], p);
+            }
+            if (!dominated) sorted[n++] = p;
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
+    private static final Comparator<double[]> LEXICOGRAPHIC = (a, b) -> {
+        for (int k = 0; k < a.length; k++) {
+            int c = Double.compare(a[k], b[k]);
+            if (c != 0) return c;
+        }
+        return 0;
+    };
+
+    /**
+     * Inverted generational distance: mean Euclidean distance of each reference point to the closest candidate point.
+     *
+     * @return IGD, or infinity if the candidate is empty.
+     */
+    public static double igd(double[][] reference, double[][] candidate) {
+        return meanDistance(reference, candidate);
+    }
+
+    /**
+     * Generational distance: mean Euclidean distance of each candidate point to the closest reference point.
+     *
+     * @return GD, or 0 if the candidate is empty.
+     */
+    public static double gd(double[][] reference, double[][] candidate) {
+        return (candidate.length == 0) ? 0.0 : meanDistance(candidate, reference);
+    }
+
+    private static double meanDistance(double[][] from, double[][] to) {
+        if (to.length == 0) return Double.POSITIVE_INFINITY;
+        double sum = 0.0;
+        for (double[] a : from) {
+            double min = Double.POSITIVE_INFINITY;
+            for (double[] b : to) {
+                double d = 0.0;
+                for (int k = 0; k < a.length; k++) {
+                    double diff = a[k] - b[k];
+                    d += diff * diff;
+                }
+                min = Math.min(min, d);
+            }
+            sum += Math.sqrt(min);
+        }
+        return sum / from.length;
+    }
+
+    /**
+     * Additive epsilon indicator: the smallest e, such that every reference point is weakly dominated by
+     * a candidate point minus e in each objective.
+     *
+     * @return Epsilon (at most 0, if the candidate weakly dominates the reference), or infinity if the candidate is empty.
+     */
+    public static double additiveEpsilon(double[][] reference, double[][] candidate) {
+        double epsilon = Double.NEGATIVE_INFINITY;
+        for (double[] r : reference) {
+            double best = Double.POSITIVE_INFINITY;
+            for (double[] a : candidate) {
+                double e = Double.NEGATIVE_INFINITY;
+                for (int k = 0; k < r.length; k++) {
+                    e = Math.max(e, a[k] - r[k]);
+                }
+                best = Math.min(best, e);
+            }
+            epsilon = Math.max(epsilon, best);
+        }
+        return epsilon;
+    }
+
+    /**
+     * @return Objective vectors of the solutions.
+     */
+    public static double[][] toPoints(Collection<? extends Solution> solutions) {
+        return solutions.stream().map(Solution::getObj).toArray(double[][]::new);
+    }
+
+    private static boolean weaklyDominates(double[] a, double[] b) {
+        for (int k = 0; k < a.length; k++) {
+            if (a[k] > b[k]) return false;
+        }
+        return true;
+    }
+
+    private static boolean strictlyDominates(double[] a, double[] b) {
+        for (int k = 0; k < a.length; k++) {
+            if (a[k] >= b[k]) return false;
+        }
+        return true;
+    }
+}
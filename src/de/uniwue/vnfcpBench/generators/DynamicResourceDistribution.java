@@ -20,6 +20,8 @@ public class DynamicResourceDistribution implements ProblemGenerator {
 	private int[] instances;
 	private double[] requestedBandwidths;
 	private Random rand;
+	private int pathCacheSize = 256;
+	private ShortestPathCache pathCache;
 
 	public DynamicResourceDistribution(NetworkGraph baseGraph, VnfLib vnfLib, int[] possibleLocations, int[] usedLocations, int[] instances, double[] requestedBandwidths, Random rand) {
 		this.baseGraph = Objects.requireNonNull(baseGraph);
@@ -69,8 +71,33 @@ public class DynamicResourceDistribution implements ProblemGenerator {
 		this(baseGraph, 1, new double[]{500.0, 700.0}, possibleLocations, usedLocations, instances, requestedBandwidths, rand);
 	}
 
+	/**
+	 * Sets how many shortest path trees (wrt. delay) of the base graph are kept at most.
+	 * Trees are only computed for the sources that are needed (request ingresses and instance locations).
+	 *
+	 * @param pathCacheSize Maximum number of cached trees.
+	 */
+	public void setPathCacheSize(int pathCacheSize) {
+		if (pathCacheSize < 1) {
+			throw new IllegalArgumentException("pathCacheSize = " + pathCacheSize);
+		}
+		this.pathCacheSize = pathCacheSize;
+		this.pathCache = null;
+	}
+
+	/**
+	 * @return Cache of shortest path trees (with its statistics), or <tt>null</tt> before the first instance.
+	 */
+	public ShortestPathCache getPathCache() {
+		return pathCache;
+	}
+
 	@Override
 	public ProblemInstance generate(OutputStream topoStream, OutputStream vnfStream, OutputStream reqStream) {
+		if (pathCache == null || pathCache.getGraph() != baseGraph.getCsr()) {
+			pathCache = new ShortestPathCache(baseGraph.getCsr(), true, pathCacheSize);
+		}
+
 		// Find locations for instances
 		int numUsedLocations = usedLocations[0] + rand.nextInt(usedLocations[1] - usedLocations[0] + 1);
 		int numPossibleLocations = possibleLocations[0] + rand.nextInt(possibleLocations[1] - possibleLocations[0] + 1);
@@ -109,7 +136,7 @@ public class DynamicResourceDistribution implements ProblemGenerator {
 
 			// Find shortest path through 1 instance
 			// TODO: This needs to be changed when introducing multiple VNFs.
-			TrafficFlow flow = findShortestPathWithInstance(baseGraph, deploymentCopy, srcNode, dstNode);
+			TrafficFlow flow = findShortestPathWithInstance(deploymentCopy, srcNode, dstNode);
 
 			// Select requested bandwidth
 			double maxDemandBandw = requestedBandwidths[1];
@@ -221,40 +248,39 @@ public class DynamicResourceDistribution implements ProblemGenerator {
 		return pi;
 	}
 
-	private TrafficFlow findShortestPathWithInstance(NetworkGraph baseGraph, HashMap<Node, LinkedList<VnfInstance>> deployment, Node srcNode, Node dstNode) {
+	private TrafficFlow findShortestPathWithInstance(HashMap<Node, LinkedList<VnfInstance>> deployment, Node srcNode, Node dstNode) {
 		LinkedList<Hop> ret = new LinkedList<>();
-		HashMap<Node, HashMap<Node, Node.Att>> bp = baseGraph.getDijkstraBackpointers();
+		CsrGraph g = pathCache.getGraph();
+		ShortestPathTree fromSrc = pathCache.get(srcNode);
+		int dstId = g.getId(dstNode);
 
 		// Find best middle choice
 		Node mid = null;
+		ShortestPathTree fromMid = null;
 		double dst = -1;
 		for (Node n : deployment.keySet()) {
-			double currentDst = bp.get(srcNode).get(n).delay + bp.get(n).get(dstNode).delay;
+			ShortestPathTree fromN = pathCache.get(n);
+			double currentDst = fromSrc.delay[g.getId(n)] + fromN.delay[dstId];
 			if (mid == null || dst > currentDst) {
 				mid = n;
+				fromMid = fromN;
 				dst = currentDst;
 			}
 		}
 
 		// Create path
-		HashMap<Node, Node.Att> pointers = bp.get(mid);
-		Node.Att c = pointers.get(dstNode);
 		VnfInstance inst = null;
-		while (c.pi != null) {
-			ret.addFirst(new Hop(c.node, c.pi, inst));
+		for (int v = dstId; v != fromMid.source; v = fromMid.getPredNode(v)) {
+			ret.addFirst(new Hop(g.getNode(v), g.getLink(fromMid.predLink[v]), inst));
 			inst = null;
-			c = pointers.get(c.pi.getOther(c.node));
 		}
 
 		LinkedList<VnfInstance> midsInstances = deployment.get(mid);
 		inst = midsInstances.get(rand.nextInt(midsInstances.size()));
 
-		pointers = bp.get(srcNode);
-		c = pointers.get(mid);
-		while (c.pi != null) {
-			ret.addFirst(new Hop(c.node, c.pi, inst));
+		for (int v = g.getId(mid); v != fromSrc.source; v = fromSrc.getPredNode(v)) {
+			ret.addFirst(new Hop(g.getNode(v), g.getLink(fromSrc.predLink[v]), inst));
 			inst = null;
-			c = pointers.get(c.pi.getOther(c.node));
 		}
 
 		ret.addFirst(new Hop(srcNode, null, inst));
@@ -1,6 +1,7 @@
 package de.uniwue.vnfcpBench.generators;
 
 import de.uniwue.vnfcpBench.model.*;
+import de.uniwue.vnfcpBench.model.solution.BiObjectiveParetoFrontier;
 import de.uniwue.vnfcpBench.model.solution.ParetoFrontier;
 import de.uniwue.vnfcpBench.model.solution.GridGraphSolution;
 
@@ -179,7 +180,7 @@ public class GridGraphProblem implements ProblemGenerator {
         }
         GridGraphInstance msi = (GridGraphInstance) inst;
 
-        ParetoFrontier<GridGraphSolution> pf = new ParetoFrontier<>();
+        ParetoFrontier<GridGraphSolution> pf = new BiObjectiveParetoFrontier<>();
         int[] placeVnf = new int[msi.k];
         getSolutionsRec(msi, pf, placeVnf, 0);
         return pf;
@@ -0,0 +1,220 @@
+package de.uniwue.vnfcpBench.model;
+
+import de.uniwue.vnfcpBench.solvers.bruteForce.FlowUtils;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+import java.util.function.ToIntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Shortest paths between all pairs of nodes of a {@link CsrGraph}, stored as one
+ * {@link ShortestPathTree} (primitive hop, delay and backpointer rows) per source.
+ * <p>
+ * When the {@link NetworkGraph} is edited, the trees are repaired in place instead of recomputed
+ * (Ramalingam and Reps): an O(1) check per tree finds the trees that an edit changes, and only their affected
+ * nodes are searched again (in parallel over the trees). A tree is affected by
+ * <ul>
+ * <li>a new or shortened link, if the link yields a strictly shorter path to one of its nodes
+ * (then only the nodes whose paths get shorter are searched again),</li>
+ * <li>a removed or lengthened link, if the link is the last link of the path to one of its nodes
+ * (then only the subtree below this link is searched again),</li>
+ * <li>a new node, never (it is unreachable until it has links).</li>
+ * </ul>
+ * The repaired distances (hops for BFS trees, delays for Dijkstra trees) are always the ones that a full
+ * recomputation finds. Among equally short paths, a repaired tree may keep another one than a new search
+ * would choose, so the other metric (e.g. the delay of a BFS path) can differ.
+ * Trees obtained before nodes were added are replaced by larger ones, so get them again after such edits.
+ */
+public class AllPairsShortestPaths {
+    private final boolean byDelay;
+    private ShortestPathTree[] trees;
+    private long repairedTrees, repairedNodes;
+
+    /**
+     * @param trees   Tree of each source, indexed by node id.
+     * @param byDelay Whether the trees minimize the delay (Dijkstra) instead of the hops (BFS).
+     */
+    public AllPairsShortestPaths(ShortestPathTree[] trees, boolean byDelay) {
+        this.trees = trees;
+        this.byDelay = byDelay;
+    }
+
+    /**
+     * Estimates the heap usage of the trees for a graph, so that callers can check it before the computation.
+     *
+     * @param numNodes Number of nodes.
+     * @return Approximate size in bytes.
+     */
+    public static long estimateBytes(int numNodes) {
+        // Per row: 4 (hops) + 8 (delay) + 4 (link) bytes per node, plus the headers of the object and its arrays.
+        return numNodes * (16L * numNodes + 88);
+    }
+
+    /**
+     * Adds an isolated node: it gets its own tree and is unreachable from all other nodes.
+     * The rows of the other trees are copied into larger ones.
+     *
+     * @param g Graph after the edit.
+     */
+    void nodeAdded(CsrGraph g) {
+        int n = g.getNumNodes();
+        ShortestPathTree[] grown = Arrays.copyOf(trees, n);
+        for (int s = 0; s < trees.length; s++) {
+            ShortestPathTree t = trees[s];
+            int old = t.hops.length;
+            float[] hops = Arrays.copyOf(t.hops, n);
+            double[] delay = Arrays.copyOf(t.delay, n);
+            int[] predLink = Arrays.copyOf(t.predLink, n);
+            Arrays.fill(hops, old, n, Float.POSITIVE_INFINITY);
+            Arrays.fill(delay, old, n, Double.POSITIVE_INFINITY);
+            Arrays.fill(predLink, old, n, -1);
+            grown[s] = new ShortestPathTree(g, s, hops, delay, predLink);
+        }
+        for (int s = trees.length; s < n; s++) {
+            grown[s] = new ShortestPathTree(g, s);
+        }
+        trees = grown;
+    }
+
+    /**
+     * @param g    Graph after the edit.
+     * @param link Id of the new link.
+     */
+    void linkAdded(CsrGraph g, int link) {
+        repair(s -> isImprovedBy(trees[s], g, link), t -> FlowUtils.repairDecrease(g, t, link, byDelay));
+    }
+
+    /**
+     * @param g     Graph after the edit.
+     * @param link  Id of the removed link.
+     * @param node1 Id of its first node.
+     * @param node2 Id of its second node.
+     */
+    void linkRemoved(CsrGraph g, int link, int node1, int node2) {
+        repair(s -> trees[s].predLink[node1] == link || trees[s].predLink[node2] == link,
+                t -> FlowUtils.repairIncrease(g, t, (t.predLink[node1] == link) ? node1 : node2, byDelay));
+    }
+
+    /**
+     * @param g        Graph after the edit.
+     * @param link     Id of the changed link.
+     * @param oldDelay Delay of the link before the edit.
+     */
+    void linkChanged(CsrGraph g, int link, double oldDelay) {
+        if (g.delay[link] == oldDelay) return;
+
+        int node1 = g.linkNode1[link], node2 = g.linkNode2[link];
+        if (!byDelay) {
+            // BFS trees do not depend on delays, but the delays along them do:
+            repair(s -> trees[s].predLink[node1] == link || trees[s].predLink[node2] == link,
+                    t -> FlowUtils.repairDelays(g, t, (t.predLink[node1] == link) ? node1 : node2));
+        } else if (g.delay[link] < oldDelay) {
+            repair(s -> isImprovedBy(trees[s], g, link), t -> FlowUtils.repairDecrease(g, t, link, true));
+        } else {
+            repair(s -> trees[s].predLink[node1] == link || trees[s].predLink[node2] == link,
+                    t -> FlowUtils.repairIncrease(g, t, (t.predLink[node1] == link) ? node1 : node2, true));
+        }
+    }
+
+    /**
+     * @return Whether the link yields a strictly shorter path to one of its nodes than the tree's.
+     */
+    private boolean isImprovedBy(ShortestPathTree t, CsrGraph g, int link) {
+        int node1 = g.linkNode1[link], node2 = g.linkNode2[link];
+        if (improves(t, g, link, node1, node2)) return true;
+        return g.isUndirected(link) && improves(t, g, link, node2, node1);
+    }
+
+    private boolean improves(ShortestPathTree t, CsrGraph g, int link, int from, int to) {
+        if (!t.isReachable(from)) return false;
+        return byDelay ? t.delay[from] + g.delay[link] < t.delay[to] : t.hops[from] + 1 < t.hops[to];
+    }
+
+    /**
+     * Repairs the affected trees in place, in parallel.
+     *
+     * @param affected Whether the tree of a source is changed by the edit.
+     * @param repair   Repairs a tree and returns the number of nodes that were searched again.
+     */
+    private void repair(IntPredicate affected, ToIntFunction<ShortestPathTree> repair) {
+        int[] sources = IntStream.range(0, trees.length).filter(affected).toArray();
+        repairedNodes += IntStream.of(sources).parallel().mapToLong(s -> repair.applyAsInt(trees[s])).sum();
+        repairedTrees += sources.length;
+    }
+
+    /**
+     * @return Number of trees that were repaired after edits of the graph.
+     */
+    public long getRepairedCount() {
+        return repairedTrees;
+    }
+
+    /**
+     * @return Number of nodes (summed over all trees) that were searched again after edits of the graph.
+     */
+    public long getRepairedNodeCount() {
+        return repairedNodes;
+    }
+
+    /**
+     * @return Whether the trees minimize the delay (Dijkstra) instead of the hops (BFS).
+     */
+    public boolean isByDelay() {
+        return byDelay;
+    }
+
+    /**
+     * @return Number of nodes.
+     */
+    public int getNumNodes() {
+        return trees.length;
+    }
+
+    /**
+     * @return Approximate heap usage of the trees in bytes (see {@link #estimateBytes(int)}).
+     */
+    public long getMemoryBytes() {
+        return estimateBytes(trees.length);
+    }
+
+    /**
+     * @param source Node id.
+     * @return Paths from the source.
+     */
+    public ShortestPathTree getTree(int source) {
+        return trees[source];
+    }
+
+    /**
+     * @return Number of hops from source to target (infinity, if unreachable).
+     */
+    public double getHops(int source, int target) {
+        return trees[source].hops[target];
+    }
+
+    /**
+     * @return Delay from source to target (infinity, if unreachable). (μs)
+     */
+    public double getDelay(int source, int target) {
+        return trees[source].delay[target];
+    }
+
+    /**
+     * @return Link ids of the path from source to target (reachable), from the target to the source.
+     */
+    public int[] getPathLinks(int source, int target) {
+        return trees[source].getPathLinks(target);
+    }
+
+    @Override
+    public String toString() {
+        return "AllPairsShortestPaths{" +
+                "nodes=" + trees.length +
+                ", byDelay=" + byDelay +
+                ", memoryBytes=" + getMemoryBytes() +
+                ", repairedTrees=" + repairedTrees +
+                ", repairedNodes=" + repairedNodes +
+                '}';
+    }
+}
@@ -0,0 +1,388 @@
+package de.uniwue.vnfcpBench.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Int-indexed view of a {@link NetworkGraph} in compressed sparse row (CSR) format,
+ * for shortest path searches on large topologies.
+ * <p>
+ * Nodes have the dense ids {@code 0..getNumNodes()-1} and links the ids {@code 0..getNumLinks()-1},
+ * both in the order they were added to the graph, so the ids stay the same when the graph is edited
+ * (a removed link leaves an unused id, for which {@link #getLink(int)} returns <tt>null</tt>). The arcs leaving node {@code u}
+ * are {@code offsets[u]..offsets[u+1]-1}: an undirected link yields an arc in both directions,
+ * a directed one only from {@code node1} to {@code node2}. The arcs of each node are sorted by link id,
+ * so searches do not depend on hash codes. The arcs entering node {@code v} (for backward searches) are
+ * {@code inOffsets[v]..inOffsets[v+1]-1}, also sorted by link id.
+ * <p>
+ * Obtain it via {@link NetworkGraph#getCsr()}; the arrays must not be modified. The edit methods of the graph
+ * patch the arrays in place instead of building new ones: a new node or a changed link costs O(1), a new or
+ * removed link moves the arcs behind it by one (the arrays have spare capacity, so they may be longer than
+ * the number of nodes, arcs and links). Every edit increases {@link #getVersion()}, so that results derived
+ * from the arrays can tell whether they are outdated. The arrays must not be read while the graph is edited.
+ */
+public class CsrGraph {
+    /**
+     * First arc of each node (and the number of arcs at index {@code getNumNodes()}).
+     */
+    public int[] offsets;
+    /**
+     * Target node of each arc.
+     */
+    public int[] targets;
+    /**
+     * Link of each arc.
+     */
+    public int[] arcLinks;
+    /**
+     * First entering arc of each node (and the number of arcs at index {@code getNumNodes()}).
+     */
+    public int[] inOffsets;
+    /**
+     * Source node of each entering arc.
+     */
+    public int[] sources;
+    /**
+     * Link of each entering arc.
+     */
+    public int[] inArcLinks;
+    /**
+     * First and second node of each link (-1 for unused ids).
+     */
+    public int[] linkNode1, linkNode2;
+    /**
+     * Available bandwidth of each link. (Mbps)
+     */
+    public double[] bandwidth;
+    /**
+     * Latency of each link. (μs)
+     */
+    public double[] delay;
+
+    private Node[] nodes;
+    private Link[] links;
+    private boolean[] undirected;
+    private int numNodes, numLinks, numArcs;
+    private int version;
+    private final HashMap<Node, Integer> nodeIds;
+    // By identity, since a directed link equals its reverse:
+    private final IdentityHashMap<Link, Integer> linkIds;
+
+    /**
+     * @param nodeList All nodes of the graph, in the order they were added.
+     * @param linkList All links of the graph, by link id (<tt>null</tt> for removed ones).
+     *                 Every link in the neighbor lists of the nodes must be contained.
+     */
+    CsrGraph(List<Node> nodeList, List<Link> linkList) {
+        nodes = nodeList.toArray(new Node[0]);
+        numNodes = nodes.length;
+        nodeIds = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            nodeIds.put(nodes[i], i);
+        }
+
+        links = linkList.toArray(new Link[0]);
+        numLinks = links.length;
+        linkIds = new IdentityHashMap<>();
+        for (int i = 0; i < links.length; i++) {
+            if (links[i] != null) linkIds.put(links[i], i);
+        }
+        for (Node n : nodes) {
+            for (Link l : n.getNeighbours()) {
+                if (!linkIds.containsKey(l)) {
+                    throw new IllegalArgumentException("link " + l.node1.name + " - " + l.node2.name + " has no id");
+                }
+                numArcs++;
+            }
+        }
+        undirected = new boolean[links.length];
+        linkNode1 = new int[links.length];
+        linkNode2 = new int[links.length];
+        bandwidth = new double[links.length];
+        delay = new double[links.length];
+        for (int id = 0; id < links.length; id++) {
+            Link l = links[id];
+            if (l == null) {
+                linkNode1[id] = -1;
+                linkNode2[id] = -1;
+                continue;
+            }
+            linkNode1[id] = nodeIds.get(l.node1);
+            linkNode2[id] = nodeIds.get(l.node2);
+            bandwidth[id] = l.bandwidth;
+            delay[id] = l.delay;
+        }
+
+        offsets = new int[nodes.length + 1];
+        targets = new int[numArcs];
+        arcLinks = new int[numArcs];
+        int a = 0;
+        for (int u = 0; u < nodes.length; u++) {
+            offsets[u] = a;
+            int first = a;
+            for (Link l : nodes[u].getNeighbours()) {
+                arcLinks[a++] = linkIds.get(l);
+            }
+            Arrays.sort(arcLinks, first, a);
+            for (int i = first; i < a; i++) {
+                int l = arcLinks[i];
+                targets[i] = nodeIds.get(links[l].getOther(nodes[u]));
+                // An arc against the link's direction only exists for undirected links:
+                if (linkNode1[l] != u) undirected[l] = true;
+            }
+        }
+        offsets[nodes.length] = a;
+
+        // Entering arcs, by counting sort on the target:
+        inOffsets = new int[nodes.length + 1];
+        sources = new int[numArcs];
+        inArcLinks = new int[numArcs];
+        for (int i = 0; i < numArcs; i++) {
+            inOffsets[targets[i] + 1]++;
+        }
+        for (int v = 0; v < nodes.length; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] next = Arrays.copyOf(inOffsets, nodes.length);
+        for (int u = 0; u < nodes.length; u++) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                inArcLinks[next[targets[i]]++] = arcLinks[i];
+            }
+        }
+        for (int v = 0; v < nodes.length; v++) {
+            Arrays.sort(inArcLinks, inOffsets[v], inOffsets[v + 1]);
+            for (int i = inOffsets[v]; i < inOffsets[v + 1]; i++) {
+                sources[i] = getOther(inArcLinks[i], v);
+            }
+        }
+    }
+
+    /**
+     * Appends a node without links.
+     */
+    void addNode(Node n) {
+        if (numNodes == nodes.length) {
+            int size = Math.max(16, 2 * numNodes);
+            nodes = Arrays.copyOf(nodes, size);
+            offsets = Arrays.copyOf(offsets, size + 1);
+            inOffsets = Arrays.copyOf(inOffsets, size + 1);
+        }
+        nodes[numNodes] = n;
+        nodeIds.put(n, numNodes);
+        numNodes++;
+        offsets[numNodes] = numArcs;
+        inOffsets[numNodes] = numArcs;
+        version++;
+    }
+
+    /**
+     * Adds the arcs of a new link (undirected, if it is in the neighbor lists of both nodes).
+     * As it has the largest id, its arcs go to the end of their nodes' arcs.
+     *
+     * @param l  New link.
+     * @param id Its id, which must be {@link #getNumLinks()}.
+     */
+    void addLink(Link l, int id) {
+        if (id != numLinks) {
+            throw new IllegalArgumentException("id = " + id);
+        }
+        if (numLinks == links.length) {
+            int size = Math.max(16, 2 * numLinks);
+            links = Arrays.copyOf(links, size);
+            undirected = Arrays.copyOf(undirected, size);
+            linkNode1 = Arrays.copyOf(linkNode1, size);
+            linkNode2 = Arrays.copyOf(linkNode2, size);
+            bandwidth = Arrays.copyOf(bandwidth, size);
+            delay = Arrays.copyOf(delay, size);
+        }
+        int u = getId(l.node1), v = getId(l.node2);
+        links[id] = l;
+        linkIds.put(l, id);
+        linkNode1[id] = u;
+        linkNode2[id] = v;
+        bandwidth[id] = l.bandwidth;
+        delay[id] = l.delay;
+        undirected[id] = isNeighbour(l.node2, l);
+        numLinks++;
+
+        insertArc(u, v, id);
+        if (undirected[id]) {
+            insertArc(v, u, id);
+        }
+        version++;
+    }
+
+    /**
+     * Removes the arcs of a link; its id stays unused.
+     */
+    void removeLink(int id) {
+        Link l = links[id];
+        int u = linkNode1[id], v = linkNode2[id];
+        removeArc(u, v, id);
+        if (undirected[id]) {
+            removeArc(v, u, id);
+        }
+        linkIds.remove(l);
+        links[id] = null;
+        undirected[id] = false;
+        linkNode1[id] = -1;
+        linkNode2[id] = -1;
+        bandwidth[id] = 0.0;
+        delay[id] = 0.0;
+        version++;
+    }
+
+    /**
+     * Replaces a link by one with the same nodes and direction (and new bandwidth and delay).
+     */
+    void updateLink(int id, Link replacement) {
+        linkIds.remove(links[id]);
+        linkIds.put(replacement, id);
+        links[id] = replacement;
+        bandwidth[id] = replacement.bandwidth;
+        delay[id] = replacement.delay;
+        version++;
+    }
+
+    private static boolean isNeighbour(Node n, Link l) {
+        for (Link other : n.getNeighbours()) {
+            if (other == l) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Appends the arc u -> v to the arcs leaving u and the arcs entering v.
+     */
+    private void insertArc(int u, int v, int link) {
+        if (numArcs == targets.length) {
+            int size = Math.max(16, 2 * numArcs);
+            targets = Arrays.copyOf(targets, size);
+            arcLinks = Arrays.copyOf(arcLinks, size);
+            sources = Arrays.copyOf(sources, size);
+            inArcLinks = Arrays.copyOf(inArcLinks, size);
+        }
+        insert(offsets, targets, arcLinks, u, v, link);
+        insert(inOffsets, sources, inArcLinks, v, u, link);
+        numArcs++;
+    }
+
+    private void insert(int[] offsets, int[] heads, int[] arcLinks, int node, int head, int link) {
+        int pos = offsets[node + 1];
+        System.arraycopy(heads, pos, heads, pos + 1, numArcs - pos);
+        System.arraycopy(arcLinks, pos, arcLinks, pos + 1, numArcs - pos);
+        heads[pos] = head;
+        arcLinks[pos] = link;
+        for (int w = node + 1; w <= numNodes; w++) {
+            offsets[w]++;
+        }
+    }
+
+    /**
+     * Removes the arc u -> v from the arcs leaving u and the arcs entering v.
+     */
+    private void removeArc(int u, int v, int link) {
+        remove(offsets, targets, arcLinks, u, link);
+        remove(inOffsets, sources, inArcLinks, v, link);
+        numArcs--;
+    }
+
+    private void remove(int[] offsets, int[] heads, int[] arcLinks, int node, int link) {
+        int pos = offsets[node];
+        while (arcLinks[pos] != link) pos++;
+        System.arraycopy(heads, pos + 1, heads, pos, numArcs - pos - 1);
+        System.arraycopy(arcLinks, pos + 1, arcLinks, pos, numArcs - pos - 1);
+        for (int w = node + 1; w <= numNodes; w++) {
+            offsets[w]--;
+        }
+    }
+
+    /**
+     * @return Number of edits so far.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Number of nodes.
+     */
+    public int getNumNodes() {
+        return numNodes;
+    }
+
+    /**
+     * @return Number of link ids (including the unused ids of removed links).
+     */
+    public int getNumLinks() {
+        return numLinks;
+    }
+
+    /**
+     * @return Number of arcs (two per undirected link).
+     */
+    public int getNumArcs() {
+        return numArcs;
+    }
+
+    /**
+     * @param link Link id.
+     * @return Whether the link can be used in both directions.
+     */
+    public boolean isUndirected(int link) {
+        return undirected[link];
+    }
+
+    /**
+     * Same as {@link Link#getOther(Node)}, on ids.
+     *
+     * @param link Link id.
+     * @param node Id of one of its nodes.
+     * @return Id of the other node.
+     */
+    public int getOther(int link, int node) {
+        return (linkNode1[link] == node) ? linkNode2[link] : linkNode1[link];
+    }
+
+    /**
+     * @param id Node id.
+     * @return Node with this id.
+     */
+    public Node getNode(int id) {
+        return nodes[id];
+    }
+
+    /**
+     * @param n Node of the graph.
+     * @return Id of the node.
+     */
+    public int getId(Node n) {
+        Integer id = nodeIds.get(n);
+        if (id == null) {
+            throw new IllegalArgumentException("n = " + n.name);
+        }
+        return id;
+    }
+
+    /**
+     * @param id Link id.
+     * @return Link with this id, or <tt>null</tt> if it was removed.
+     */
+    public Link getLink(int id) {
+        return links[id];
+    }
+
+    /**
+     * @param l Link object of the graph (not an equal copy).
+     * @return Id of the link.
+     */
+    public int getId(Link l) {
+        Integer id = linkIds.get(l);
+        if (id == null) {
+            throw new IllegalArgumentException("l = " + l);
+        }
+        return id;
+    }
+}
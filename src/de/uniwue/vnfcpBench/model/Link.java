@@ -70,7 +70,9 @@ public class Link {
 
     @Override
     public int hashCode() {
-        return node1.hashCode() * node2.hashCode();
+        // Symmetric like equals(), but without the many collisions of a product:
+        int h1 = node1.hashCode(), h2 = node2.hashCode();
+        return 31 * Math.min(h1, h2) + Math.max(h1, h2);
     }
 
     @Override
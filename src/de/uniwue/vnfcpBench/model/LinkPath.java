@@ -0,0 +1,77 @@
+package de.uniwue.vnfcpBench.model;
+
+import java.util.Arrays;
+
+/**
+ * Compact path in a {@link CsrGraph}: its start node and the ids of its links, in path order.
+ */
+public class LinkPath {
+    /**
+     * Id of the first node.
+     */
+    public final int source;
+    /**
+     * Id of the last node.
+     */
+    public final int target;
+    /**
+     * Link ids, from the source to the target.
+     */
+    public final int[] links;
+    /**
+     * Sum of the link delays. (μs)
+     */
+    public final double delay;
+
+    public LinkPath(int source, int target, int[] links, double delay) {
+        this.source = source;
+        this.target = target;
+        this.links = links;
+        this.delay = delay;
+    }
+
+    /**
+     * @return Number of links.
+     */
+    public int getHops() {
+        return links.length;
+    }
+
+    /**
+     * @param g Graph of the path.
+     * @return Node ids, from the source to the target.
+     */
+    public int[] getNodes(CsrGraph g) {
+        int[] nodes = new int[links.length + 1];
+        nodes[0] = source;
+        for (int i = 0; i < links.length; i++) {
+            nodes[i + 1] = g.getOther(links[i], nodes[i]);
+        }
+        return nodes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        LinkPath p = (LinkPath) o;
+
+        return source == p.source && Arrays.equals(links, p.links);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * source + Arrays.hashCode(links);
+    }
+
+    @Override
+    public String toString() {
+        return "LinkPath{" +
+                "source=" + source +
+                ", target=" + target +
+                ", links=" + Arrays.toString(links) +
+                ", delay=" + delay +
+                '}';
+    }
+}
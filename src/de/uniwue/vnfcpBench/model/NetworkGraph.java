@@ -2,17 +2,35 @@ package de.uniwue.vnfcpBench.model;
 
 import de.uniwue.vnfcpBench.solvers.bruteForce.FlowUtils;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.stream.Collectors;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Represents the topology of (physical) nodes and links where the placement is to be performed on.
+ * <p>
+ * The graph can be edited after shortest paths were computed: adding nodes, adding, removing and
+ * updating links patches the cached {@link CsrGraph} in place and repairs the cached
+ * {@link AllPairsShortestPaths} instead of discarding them. Once the CSR arrays exist, links should be
+ * added via this class: links that were added to the nodes directly only get their ids (and arcs)
+ * on the next lookup of a link.
  *
  * @author alex
  */
 public class NetworkGraph {
     private HashMap<String, Node> nodes;
+    private ArrayList<Node> nodeList;
+    // Links by id, in the order they were added (null for removed ones, so that link ids stay the same):
+    private ArrayList<Link> links;
+    // Id of each link, by identity (since a directed link equals its reverse):
+    private IdentityHashMap<Link, Integer> linkIds;
+    private HashSet<Link> linkSet;
+    private CsrGraph csr;
+    private AllPairsShortestPaths pathsBfs;
+    private AllPairsShortestPaths pathsDij;
     private HashMap<Node, HashMap<Node, Node.Att>> backpointerBfs;
     private HashMap<Node, HashMap<Node, Node.Att>> backpointerDij;
 
@@ -21,6 +39,9 @@ public class NetworkGraph {
      */
     public NetworkGraph() {
         nodes = new HashMap<>();
+        nodeList = new ArrayList<>();
+        links = new ArrayList<>();
+        linkIds = new IdentityHashMap<>();
     }
 
     /**
@@ -40,8 +61,12 @@ public class NetworkGraph {
         }
 
         nodes.put(name, n);
-        backpointerDij = null;
-        backpointerBfs = null;
+        nodeList.add(n);
+        invalidate();
+        if (csr != null) {
+            csr.addNode(n);
+            repairPaths(p -> p.nodeAdded(csr));
+        }
         return n;
     }
 
@@ -55,9 +80,9 @@ public class NetworkGraph {
      * @return Newly created Link object.
      */
     public Link addLink(Node n1, Node n2, double bandwidth, double delay) {
-        backpointerDij = null;
-        backpointerBfs = null;
-        return n1.addNeighbour(n2, bandwidth, delay);
+        Link l = n1.addNeighbour(n2, bandwidth, delay);
+        linkAdded(l);
+        return l;
     }
 
     /**
@@ -70,9 +95,128 @@ public class NetworkGraph {
      * @return Newly created Link object.
      */
     public Link addLinkDirected(Node n1, Node n2, double bandwidth, double delay) {
+        Link l = n1.addNeighbourDirected(n2, bandwidth, delay);
+        linkAdded(l);
+        return l;
+    }
+
+    private void linkAdded(Link l) {
+        invalidate();
+        register(l);
+    }
+
+    /**
+     * Removes a link (in both directions, if it is undirected) from the graph.
+     *
+     * @param l Link object of this graph.
+     */
+    public void removeLink(Link l) {
+        int id = indexOf(l);
+        if (isUndirected(l)) {
+            l.node2.removeNeighbour(l);
+        }
+        l.node1.removeNeighbour(l);
+        links.set(id, null);
+        linkIds.remove(l);
+
+        invalidate();
+        if (csr != null) {
+            int node1 = csr.linkNode1[id], node2 = csr.linkNode2[id];
+            csr.removeLink(id);
+            repairPaths(p -> p.linkRemoved(csr, id, node1, node2));
+        }
+    }
+
+    /**
+     * Replaces a link by one with the same nodes and direction, but with a new bandwidth and delay.
+     *
+     * @param l         Link object of this graph.
+     * @param bandwidth New available bandwidth. (Mbps)
+     * @param delay     New latency of the link (μs).
+     * @return Newly created Link object, which has the same link id in {@link #getCsr()}.
+     */
+    public Link updateLink(Link l, double bandwidth, double delay) {
+        int id = indexOf(l);
+        Link replacement = new Link(l.node1, l.node2, bandwidth, delay);
+        if (isUndirected(l)) {
+            l.node2.replaceNeighbour(l, replacement);
+        }
+        l.node1.replaceNeighbour(l, replacement);
+        links.set(id, replacement);
+        linkIds.remove(l);
+        linkIds.put(replacement, id);
+
+        invalidate();
+        if (csr != null) {
+            csr.updateLink(id, replacement);
+            repairPaths(p -> p.linkChanged(csr, id, l.delay));
+        }
+        return replacement;
+    }
+
+    private int indexOf(Link l) {
+        Objects.requireNonNull(l);
+        Integer id = linkIds.get(l);
+        if (id == null) {
+            registerNeighbourLinks();
+            id = linkIds.get(l);
+        }
+        if (id == null) {
+            throw new IllegalArgumentException("link " + l.node1.name + " - " + l.node2.name + " not in graph");
+        }
+        return id;
+    }
+
+    /**
+     * Gives the link the next free id, and adds it to the CSR arrays and shortest paths, if they were used.
+     */
+    private void register(Link l) {
+        int id = links.size();
+        links.add(l);
+        linkIds.put(l, id);
+        if (csr != null) {
+            csr.addLink(l, id);
+            repairPaths(p -> p.linkAdded(csr, id));
+        }
+    }
+
+    /**
+     * Gives an id to the links that were added to the nodes directly (via {@link Node#addNeighbour}),
+     * once, so that they keep it when further links are added.
+     */
+    private void registerNeighbourLinks() {
+        for (Node n : nodeList) {
+            for (Link l : n.getNeighbours()) {
+                if (!linkIds.containsKey(l)) register(l);
+            }
+        }
+    }
+
+    /**
+     * @return Whether the link is in the neighbor lists of both nodes.
+     */
+    private static boolean isUndirected(Link l) {
+        for (Link other : l.node2.getNeighbours()) {
+            if (other == l) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Drops the link set and backpointer maps after an edit.
+     */
+    private void invalidate() {
+        linkSet = null;
         backpointerDij = null;
         backpointerBfs = null;
-        return n1.addNeighbourDirected(n2, bandwidth, delay);
+    }
+
+    /**
+     * Applies an edit to the cached shortest paths (which only exist together with the CSR arrays).
+     */
+    private void repairPaths(Consumer<AllPairsShortestPaths> repair) {
+        if (pathsBfs != null) repair.accept(pathsBfs);
+        if (pathsDij != null) repair.accept(pathsDij);
     }
 
     /**
@@ -87,13 +231,34 @@ public class NetworkGraph {
     /**
      * Collects all links in the graph and returns the Collection.
      *
-     * @return A HashSet containing all Links in the network.
+     * @return A new HashSet containing all Links in the network.
      */
     public HashSet<Link> getLinks() {
-        return nodes.values().stream()
-                .map(Node::getNeighbours)
-                .flatMap(HashSet::stream)
-                .collect(Collectors.toCollection(HashSet::new));
+        if (linkSet == null) {
+            linkSet = new HashSet<>();
+            for (Link l : links) {
+                if (l != null) linkSet.add(l);
+            }
+            // Links that were added to the nodes directly:
+            for (Node n : nodes.values()) {
+                linkSet.addAll(n.getNeighbours());
+            }
+        }
+        return new HashSet<>(linkSet);
+    }
+
+    /**
+     * Returns the graph as int-indexed arrays, which are cached and patched in place when the graph changes
+     * (the node and link ids stay the same after edits, see {@link CsrGraph#getVersion()}).
+     *
+     * @return CSR representation of the graph.
+     */
+    public CsrGraph getCsr() {
+        if (csr == null) {
+            registerNeighbourLinks();
+            csr = new CsrGraph(nodeList, links);
+        }
+        return csr;
     }
 
     @Override
@@ -185,33 +350,64 @@ public class NetworkGraph {
         return String.format("%.0f", d);
     }
 
+    /**
+     * Returns the shortest paths (wrt. hops) between all nodes, indexed by the node ids of {@link #getCsr()}.
+     * They are computed in parallel on the first call, and repaired after edits.
+     *
+     * @return Result of a BFS from each node.
+     */
+    public AllPairsShortestPaths getBfsPaths() {
+        if (pathsBfs == null) {
+            pathsBfs = FlowUtils.allPairs(getCsr(), false);
+        }
+        return pathsBfs;
+    }
+
+    /**
+     * Returns the shortest paths (wrt. delay) between all nodes, indexed by the node ids of {@link #getCsr()}.
+     * They are computed in parallel on the first call, and repaired after edits.
+     *
+     * @return Result of a Dijkstra search from each node.
+     */
+    public AllPairsShortestPaths getDijkstraPaths() {
+        if (pathsDij == null) {
+            pathsDij = FlowUtils.allPairs(getCsr(), true);
+        }
+        return pathsDij;
+    }
+
     /**
      * Returns shortest path pointers after a BFS.
+     * These maps take far more memory than {@link #getBfsPaths()}, so avoid them on large topologies.
      *
      * @return Backpointers after performing BFS
      */
     public HashMap<Node, HashMap<Node, Node.Att>> getBfsBackpointers() {
         if (backpointerBfs == null) {
-            backpointerBfs = new HashMap<>();
-            for (Node n : nodes.values()) {
-                backpointerBfs.put(n, FlowUtils.bfs(n));
-            }
+            backpointerBfs = toBackpointers(getBfsPaths());
         }
         return backpointerBfs;
     }
 
     /**
      * Returns shortest path pointers after a Dijkstra search.
+     * These maps take far more memory than {@link #getDijkstraPaths()}, so avoid them on large topologies.
      *
      * @return Backpointers after performing Dijkstra
      */
     public HashMap<Node, HashMap<Node, Node.Att>> getDijkstraBackpointers() {
         if (backpointerDij == null) {
-            backpointerDij = new HashMap<>();
-            for (Node n : nodes.values()) {
-                backpointerDij.put(n, FlowUtils.dijkstra(n));
-            }
+            backpointerDij = toBackpointers(getDijkstraPaths());
         }
         return backpointerDij;
     }
+
+    private HashMap<Node, HashMap<Node, Node.Att>> toBackpointers(AllPairsShortestPaths paths) {
+        CsrGraph g = getCsr();
+        HashMap<Node, HashMap<Node, Node.Att>> bp = new HashMap<>();
+        for (int u = 0; u < paths.getNumNodes(); u++) {
+            bp.put(g.getNode(u), paths.getTree(u).toBackpointers());
+        }
+        return bp;
+    }
 }
@@ -98,6 +98,28 @@ public class Node implements Comparable<Node> {
         return link;
     }
 
+    /**
+     * Removes a link from this node's neighbors (only this side of an undirected link).
+     *
+     * @param link Link of this node.
+     */
+    void removeNeighbour(Link link) {
+        if (!neighbours.remove(link)) {
+            throw new IllegalArgumentException("link " + link.node1.name + " - " + link.node2.name + " not found");
+        }
+    }
+
+    /**
+     * Replaces a link in this node's neighbors by an equal one (with other properties).
+     *
+     * @param link        Link of this node.
+     * @param replacement New link between the same nodes.
+     */
+    void replaceNeighbour(Link link, Link replacement) {
+        removeNeighbour(link);
+        neighbours.add(replacement);
+    }
+
     /**
      * Returns the Collection of this node's neighbors.
      *
@@ -0,0 +1,166 @@
+package de.uniwue.vnfcpBench.model;
+
+import de.uniwue.vnfcpBench.solvers.bruteForce.FlowUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shortest path trees of a {@link CsrGraph}, computed lazily for the sources that are actually asked for.
+ * <p>
+ * At most {@code maxSize} trees are kept; beyond that, the least recently used one is evicted.
+ * The cache is thread-safe, and each tree is computed only once, even if several threads ask for
+ * the same source at the same time (the others wait for the first one).
+ * Since a tree takes 16 bytes per node, the size bound directly limits the memory:
+ * e.g. 256 trees of a graph with 20,000 nodes take about 80 MB.
+ * The cache is cleared when the graph was edited (see {@link CsrGraph#getVersion()});
+ * edits must not run concurrently with queries.
+ */
+public class ShortestPathCache {
+    private final CsrGraph graph;
+    private final boolean byDelay;
+    private final int maxSize;
+    private final LinkedHashMap<Integer, CompletableFuture<ShortestPathTree>> trees;
+    // Version of the graph that the cached trees belong to:
+    private int version;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param graph   Graph.
+     * @param byDelay Whether to minimize the delay (Dijkstra) instead of the hops (BFS).
+     * @param maxSize Maximum number of trees.
+     */
+    public ShortestPathCache(CsrGraph graph, boolean byDelay, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize = " + maxSize);
+        }
+        this.graph = graph;
+        this.byDelay = byDelay;
+        this.maxSize = maxSize;
+        this.version = graph.getVersion();
+        this.trees = new LinkedHashMap<Integer, CompletableFuture<ShortestPathTree>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CompletableFuture<ShortestPathTree>> eldest) {
+                if (size() <= ShortestPathCache.this.maxSize) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the tree of a source, and computes it if it is not cached.
+     *
+     * @param source Node id.
+     * @return Shortest paths from the source.
+     */
+    public ShortestPathTree get(int source) {
+        if (source < 0 || source >= graph.getNumNodes()) {
+            throw new IllegalArgumentException("source = " + source);
+        }
+
+        CompletableFuture<ShortestPathTree> f;
+        boolean load = false;
+        synchronized (trees) {
+            if (version != graph.getVersion()) {
+                trees.clear();
+                version = graph.getVersion();
+            }
+            f = trees.get(source);
+            if (f == null) {
+                f = new CompletableFuture<>();
+                trees.put(source, f);
+                load = true;
+            }
+        }
+
+        if (!load) {
+            hits.increment();
+            return f.join();
+        }
+
+        misses.increment();
+        try {
+            ShortestPathTree t = byDelay ? FlowUtils.dijkstra(graph, source) : FlowUtils.bfs(graph, source);
+            f.complete(t);
+            return t;
+        }
+        catch (RuntimeException | Error e) {
+            synchronized (trees) {
+                trees.remove(source, f);
+            }
+            f.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @param source Node of the graph.
+     * @return Shortest paths from the node.
+     */
+    public ShortestPathTree get(Node source) {
+        return get(graph.getId(source));
+    }
+
+    /**
+     * @return Graph whose paths are cached.
+     */
+    public CsrGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * @return Maximum number of trees.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return Number of cached trees.
+     */
+    public int size() {
+        synchronized (trees) {
+            return trees.size();
+        }
+    }
+
+    /**
+     * @return Number of requests that found their tree in the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of requests that computed their tree.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Number of trees that were evicted to stay within the maximum size.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        long h = getHitCount(), m = getMissCount();
+        return "ShortestPathCache{" +
+                "size=" + size() +
+                ", maxSize=" + maxSize +
+                ", hits=" + h +
+                ", misses=" + m +
+                ", evictions=" + getEvictionCount() +
+                ", hitRate=" + ((h + m > 0) ? (double) h / (h + m) : 0.0) +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package de.uniwue.vnfcpBench.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Result of a shortest path search from one source in a {@link CsrGraph}:
+ * distance and backpointer of every node, indexed by node id.
+ * Takes 16 bytes per node (hops, delay and backpointer).
+ */
+public class ShortestPathTree {
+    /**
+     * Id of the start node.
+     */
+    public final int source;
+    /**
+     * Number of hops of the path to each node (infinity, if unreachable).
+     */
+    public final float[] hops;
+    /**
+     * Delay of the path to each node (infinity, if unreachable). (μs)
+     */
+    public final double[] delay;
+    /**
+     * Last link of the path to each node (-1 for the source and unreachable nodes).
+     */
+    public final int[] predLink;
+
+    private final CsrGraph graph;
+
+    /**
+     * Creates a tree in which only the source is reachable; searches fill in the other nodes.
+     *
+     * @param graph  Graph to be searched.
+     * @param source Id of the start node.
+     */
+    public ShortestPathTree(CsrGraph graph, int source) {
+        int n = graph.getNumNodes();
+        this.graph = graph;
+        this.source = source;
+        this.hops = new float[n];
+        this.delay = new double[n];
+        this.predLink = new int[n];
+        Arrays.fill(hops, Float.POSITIVE_INFINITY);
+        Arrays.fill(delay, Double.POSITIVE_INFINITY);
+        Arrays.fill(predLink, -1);
+        hops[source] = 0;
+        delay[source] = 0;
+    }
+
+    /**
+     * Tree on existing rows (e.g. the rows of another tree, after the graph was edited).
+     */
+    ShortestPathTree(CsrGraph graph, int source, float[] hops, double[] delay, int[] predLink) {
+        this.graph = graph;
+        this.source = source;
+        this.hops = hops;
+        this.delay = delay;
+        this.predLink = predLink;
+    }
+
+    /**
+     * @param target Node id.
+     * @return Whether there is a path from the source to the target.
+     */
+    public boolean isReachable(int target) {
+        return hops[target] != Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @param target Node id (reachable, not the source).
+     * @return Previous node on the path to the target.
+     */
+    public int getPredNode(int target) {
+        return graph.getOther(predLink[target], target);
+    }
+
+    /**
+     * @param target Node id (reachable).
+     * @return Link ids of the path, in backpointer order (from the target to the source).
+     */
+    public int[] getPathLinks(int target) {
+        int[] path = new int[(int) hops[target]];
+        int k = 0;
+        for (int v = target; v != source; v = getPredNode(v)) {
+            path[k++] = predLink[v];
+        }
+        return path;
+    }
+
+    /**
+     * Converts the tree into the mapping (Node -> Backpointer) of {@link de.uniwue.vnfcpBench.solvers.bruteForce.FlowUtils#bfs(Node)}.
+     *
+     * @return Backpointers of all reachable nodes.
+     */
+    public HashMap<Node, Node.Att> toBackpointers() {
+        HashMap<Node, Node.Att> att = new HashMap<>();
+        for (int v = 0; v < hops.length; v++) {
+            if (!isReachable(v)) continue;
+            Link pi = (predLink[v] < 0) ? null : graph.getLink(predLink[v]);
+            att.put(graph.getNode(v), new Node.Att(graph.getNode(v), 2, hops[v], delay[v], pi));
+        }
+        return att;
+    }
+}
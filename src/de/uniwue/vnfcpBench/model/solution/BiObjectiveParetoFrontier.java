@@ -0,0 +1,144 @@
+package de.uniwue.vnfcpBench.model.solution;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Pareto Frontier for solutions with exactly two objectives (e.g. CPU and hops).
+ * <p>
+ * The solutions are kept sorted by the first objective in ascending order, so the second objective
+ * is strictly descending. The only solution that may dominate a new point is the last one whose first
+ * objective is not larger, and the points the new one dominates form a contiguous range right
+ * behind it. Both are found by binary search, dominated points are removed as one range, and a
+ * rejected point neither allocates nor copies objective vectors.
+ * <p>
+ * Solutions must only be added via {@link #updateParetoFrontier(Solution)}; other methods of the
+ * list (add, set, sort, ...) do not keep the order.
+ */
+public class BiObjectiveParetoFrontier<T extends Solution> extends ParetoFrontier<T> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Calls the superior constructor (ArrayList).
+     *
+     * @param initialCapacity (see ArrayList)
+     */
+    public BiObjectiveParetoFrontier(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    /**
+     * Calls the superior constructor (ArrayList).
+     */
+    public BiObjectiveParetoFrontier() {
+    }
+
+    /**
+     * Inserts the solutions one by one, so dominated ones (and later ones with equal objectives) are skipped.
+     *
+     * @param c Solutions with two objectives.
+     */
+    public BiObjectiveParetoFrontier(Collection<? extends T> c) {
+        super(c.size());
+        for (T s : c) {
+            updateParetoFrontier(s);
+        }
+    }
+
+    /**
+     * Computes the Pareto Frontier of many solutions at once, with the same result as inserting them one by one.
+     * After sorting by both objectives, a solution belongs to the frontier exactly if its second objective
+     * is smaller than the ones of all solutions before it (see {@link ParetoFrontier#nonDominated(Collection)}).
+     *
+     * @param solutions Solutions with two objectives.
+     * @return Pareto Frontier.
+     */
+    public static <T extends Solution> BiObjectiveParetoFrontier<T> nonDominated(Collection<? extends T> solutions) {
+        List<T> list = new ArrayList<>(solutions);
+        int[] front = nonDominatedIndices(list);
+        BiObjectiveParetoFrontier<T> pf = new BiObjectiveParetoFrontier<>(front.length);
+        for (int i : front) {
+            pf.add(list.get(i));
+        }
+        return pf;
+    }
+
+    /**
+     * Merges frontiers (e.g. of parallel workers or shards) with {@link #nonDominated(Collection)}.
+     * Earlier frontiers win among equal objective vectors.
+     *
+     * @param frontiers Frontiers, in order.
+     * @return Pareto Frontier of all solutions.
+     */
+    public static <T extends Solution> BiObjectiveParetoFrontier<T> merge(Collection<? extends Collection<? extends T>> frontiers) {
+        ArrayList<T> all = new ArrayList<>();
+        for (Collection<? extends T> c : frontiers) {
+            all.addAll(c);
+        }
+        return nonDominated(all);
+    }
+
+    /**
+     * Checks whether a point is dominated by (or equal to) a solution of the frontier.
+     *
+     * @param obj0 First objective of the point.
+     * @param obj1 Second objective of the point.
+     * @return <tt>true</tt>, if {@link #updateParetoFrontier(Solution)} would reject it.
+     */
+    public boolean isDominated(double obj0, double obj1) {
+        int k = upperBound(obj0);
+        return k > 0 && get(k - 1).getObj(1) <= obj1;
+    }
+
+    /**
+     * Same contract as {@link ParetoFrontier#updateParetoFrontier(Solution)}, but the order of
+     * the remaining elements is kept.
+     *
+     * @param newSolution New solution with two objectives.
+     * @return <tt>null</tt>, if the new solution was not inserted;
+     * otherwise, an ArrayList with all removed points is returned.
+     */
+    @Override
+    public ArrayList<T> updateParetoFrontier(T newSolution) {
+        double obj0 = newSolution.getObj(0);
+        double obj1 = newSolution.getObj(1);
+
+        int k = upperBound(obj0);
+        if (k > 0 && get(k - 1).getObj(1) <= obj1) return null;
+
+        // Dominated: the (at most one) solution with an equal first objective and all following ones
+        // with a second objective that is not smaller.
+        int from = (k > 0 && get(k - 1).getObj(0) == obj0) ? k - 1 : k;
+        int to = from;
+        int hi = size();
+        while (to < hi) {
+            int mid = (to + hi) >>> 1;
+            if (get(mid).getObj(1) >= obj1) to = mid + 1;
+            else hi = mid;
+        }
+
+        ArrayList<T> removed = new ArrayList<>(subList(from, to));
+        if (to > from) {
+            set(from, newSolution);
+            removeRange(from + 1, to);
+        }
+        else {
+            add(from, newSolution);
+        }
+        return removed;
+    }
+
+    /**
+     * @return Index of the first solution whose first objective is larger than the given one.
+     */
+    private int upperBound(double obj0) {
+        int lo = 0, hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (get(mid).getObj(0) <= obj0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,215 @@
+package de.uniwue.vnfcpBench.model.solution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe Pareto Frontier that many threads can update at the same time without a lock.
+ * <p>
+ * The frontier is an immutable array (sorted by the objectives, lexicographically), which is
+ * replaced as a whole by compare-and-set (copy on write). Most candidates are dominated, so a thread
+ * first checks the candidate against the current array, which needs no synchronization and does not
+ * allocate. Only a candidate that is not dominated takes the mutation path: it builds the next array
+ * and retries, if another thread replaced the array in the meantime.
+ * <p>
+ * Same rules as {@link ParetoFrontier#updateParetoFrontier(Solution)}: dominated and equal points are
+ * rejected. Which of several concurrently inserted equal points is kept depends on the timing.
+ */
+public class ConcurrentParetoFrontier<T extends Solution> {
+    private final AtomicReference<Object[]> solutions = new AtomicReference<>(new Object[0]);
+
+    // Contention statistics:
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Inserts a new solution, if it is not dominated by (or equal to) a solution of the frontier,
+     * and removes all solutions that it dominates.
+     *
+     * @param newSolution New solution.
+     * @return <tt>null</tt>, if the new solution was not inserted;
+     * otherwise, an ArrayList with all removed points is returned.
+     */
+    public ArrayList<T> updateParetoFrontier(T newSolution) {
+        int numObj = newSolution.getNumObj();
+        double[] obj = null;
+        while (true) {
+            Object[] current = solutions.get();
+            // Read-only pre-filter, which rejects most candidates:
+            if (isDominated(current, newSolution, numObj, false)) {
+                filtered.increment();
+                return null;
+            }
+
+            // Copy the objectives once, since the mutation path may compare them many times:
+            if (obj == null) {
+                obj = new double[numObj];
+                for (int k = 0; k < numObj; k++) obj[k] = newSolution.getObj(k);
+            }
+
+            ArrayList<T> removed = new ArrayList<>();
+            Object[] next = new Object[current.length + 1];
+            int size = 0;
+            boolean placed = false;
+            for (Object o : current) {
+                T s = cast(o);
+                if (dominates(obj, s)) {
+                    removed.add(s);
+                    continue;
+                }
+                if (!placed && compare(obj, s) < 0) {
+                    next[size++] = newSolution;
+                    placed = true;
+                }
+                next[size++] = s;
+            }
+            if (!placed) next[size++] = newSolution;
+
+            if (solutions.compareAndSet(current, Arrays.copyOf(next, size))) {
+                inserted.increment();
+                return removed;
+            }
+            retries.increment();
+        }
+    }
+
+    /**
+     * Checks whether a point is dominated by (or equal to) a solution of the frontier.
+     * Does not allocate and never blocks.
+     *
+     * @param obj0 First objective.
+     * @param obj1 Second objective.
+     * @return <tt>true</tt>, if {@link #updateParetoFrontier(Solution)} would reject a solution with these objectives.
+     */
+    public boolean isDominated(double obj0, double obj1) {
+        return isDominated2(solutions.get(), obj0, obj1, false);
+    }
+
+    /**
+     * Checks whether a point is dominated by a solution of the frontier that is better in at least one objective.
+     * Unlike {@link #isDominated(double, double)}, an equal point does not count. So a thread can use
+     * the frontier to prune its own search, while still finding the same representatives of equal points
+     * as without the shared frontier.
+     *
+     * @param obj0 First objective.
+     * @param obj1 Second objective.
+     * @return <tt>true</tt>, if every point that is not better than this one in any objective is dominated.
+     */
+    public boolean isStrictlyDominated(double obj0, double obj1) {
+        return isDominated2(solutions.get(), obj0, obj1, true);
+    }
+
+    private boolean isDominated(Object[] current, T s, int numObj, boolean strict) {
+        if (numObj == 2) return isDominated2(current, s.getObj(0), s.getObj(1), strict);
+
+        // Only solutions with a smaller or equal first objective come into question:
+        double obj0 = s.getObj(0);
+        for (int i = 0, n = upperBound(current, obj0); i < n; i++) {
+            T f = cast(current[i]);
+            boolean better = true, equal = true;
+            for (int k = 0; k < numObj && better; k++) {
+                double a = f.getObj(k), b = s.getObj(k);
+                if (a > b) better = false;
+                if (a != b) equal = false;
+            }
+            if (better && !(strict && equal)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * With two objectives, the second one decreases strictly along the array. So the last solution with
+     * a first objective not above the point's is the only one that needs to be checked.
+     */
+    private static boolean isDominated2(Object[] current, double obj0, double obj1, boolean strict) {
+        int k = upperBound(current, obj0);
+        if (k == 0) return false;
+        Solution f = (Solution) current[k - 1];
+        double f1 = f.getObj(1);
+        if (f1 > obj1) return false;
+        return !strict || f1 < obj1 || f.getObj(0) < obj0;
+    }
+
+    /**
+     * @return Index of the first solution whose first objective is larger than the given one.
+     */
+    private static int upperBound(Object[] current, double obj0) {
+        int lo = 0, hi = current.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (((Solution) current[mid]).getObj(0) <= obj0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * @return Whether the objectives dominate (or equal) the solution's.
+     */
+    private static boolean dominates(double[] obj, Solution s) {
+        for (int k = 0; k < obj.length; k++) {
+            if (obj[k] > s.getObj(k)) return false;
+        }
+        return true;
+    }
+
+    private static int compare(double[] obj, Solution s) {
+        for (int k = 0; k < obj.length; k++) {
+            int c = Double.compare(obj[k], s.getObj(k));
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T cast(Object o) {
+        return (T) o;
+    }
+
+    /**
+     * @return Current number of solutions.
+     */
+    public int size() {
+        return solutions.get().length;
+    }
+
+    /**
+     * Returns a copy of the current solutions, sorted by the objectives.
+     * Concurrent updates are not reflected.
+     *
+     * @return Pareto Frontier.
+     */
+    public ParetoFrontier<T> getSnapshot() {
+        Object[] current = solutions.get();
+        ParetoFrontier<T> pf = new ParetoFrontier<>(current.length);
+        for (Object o : current) {
+            pf.add(cast(o));
+        }
+        return pf;
+    }
+
+    /**
+     * @return Number of candidates that the read-only pre-filter rejected.
+     */
+    public long getFilteredCount() {
+        return filtered.sum();
+    }
+
+    /**
+     * @return Number of candidates that were inserted.
+     */
+    public long getInsertedCount() {
+        return inserted.sum();
+    }
+
+    /**
+     * @return Number of failed compare-and-sets, i.e. how often a thread had to redo an insertion
+     * because another thread changed the frontier first.
+     */
+    public long getRetryCount() {
+        return retries.sum();
+    }
+}
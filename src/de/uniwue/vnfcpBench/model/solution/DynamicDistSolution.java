@@ -17,6 +17,21 @@ public class DynamicDistSolution implements Solution {
 
 	@Override
 	public double[] getObj() {
+		double[] obj = computeObj();
+		return Arrays.copyOf(obj, obj.length);
+	}
+
+	@Override
+	public double getObj(int i) {
+		return computeObj()[i];
+	}
+
+	@Override
+	public int getNumObj() {
+		return computeObj().length;
+	}
+
+	private double[] computeObj() {
 		if (obj == null) {
 			HashSet<VnfInstance> instances = Arrays.stream(assigs)
 					.flatMap(a -> Arrays.stream(a.flow.instances))
@@ -24,7 +39,7 @@ public class DynamicDistSolution implements Solution {
 			double cpu = instances.stream().mapToDouble(i -> i.vnf.cpuRequired).sum();
 			obj = new double[]{cpu};
 		}
-		return Arrays.copyOf(obj, obj.length);
+		return obj;
 	}
 
 	@Override
@@ -0,0 +1,176 @@
+package de.uniwue.vnfcpBench.model.solution;
+
+import java.util.ArrayList;
+
+/**
+ * Bounded archive that keeps an additive epsilon-approximation of the Pareto Frontier instead of
+ * the frontier itself (epsilon-box dominance, Laumanns et al., Evolutionary Computation 10(3), 2002).
+ * <p>
+ * The objective space is divided into boxes of size {@code epsilon[k]} per objective, and at most one
+ * solution per box is kept: a new solution is rejected if the box of an archived one dominates its box,
+ * and within a box, the dominating solution (or the one closer to the box's lower corner) wins.
+ * Every solution ever offered is then weakly dominated by an archived solution minus {@code epsilon}
+ * in each objective, while the archive only holds as many solutions as there are non-dominated boxes.
+ * <p>
+ * With a maximum size, the boxes are doubled in each dimension whenever the archive grows beyond it,
+ * and the archive is filtered again. The guarantee then holds for twice the final {@link #getEpsilon()},
+ * since the approximation errors of the coarsening steps add up to at most the final box size.
+ */
+public class EpsilonBoxParetoFrontier<T extends Solution> extends ParetoFrontier<T> {
+    private static final long serialVersionUID = 1L;
+
+    private final int maxSize;
+    private final double[] epsilon;
+    private final ArrayList<long[]> boxes = new ArrayList<>();
+    private final long[] box;
+
+    /**
+     * Archive with a fixed grid.
+     *
+     * @param epsilon Box size per objective.
+     */
+    public EpsilonBoxParetoFrontier(double... epsilon) {
+        this(Integer.MAX_VALUE, epsilon);
+    }
+
+    /**
+     * Archive with a maximum size, whose grid is coarsened as needed.
+     *
+     * @param maxSize Maximum number of solutions.
+     * @param epsilon Initial box size per objective.
+     */
+    public EpsilonBoxParetoFrontier(int maxSize, double... epsilon) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize = " + maxSize);
+        }
+        for (double e : epsilon) {
+            if (!(e > 0.0)) {
+                throw new IllegalArgumentException("epsilon = " + e);
+            }
+        }
+        this.maxSize = maxSize;
+        this.epsilon = epsilon.clone();
+        this.box = new long[epsilon.length];
+    }
+
+    /**
+     * Inserts a new solution, unless its box is dominated by (or equal to) the box of an archived solution
+     * that is at least as good. Removes the archived solutions whose boxes are dominated by the new one.
+     *
+     * @param newSolution New solution.
+     * @return <tt>null</tt>, if the new solution was not inserted;
+     * otherwise, an ArrayList with all removed points is returned
+     * (which may include the new solution itself, if the archive had to be coarsened).
+     */
+    @Override
+    public ArrayList<T> updateParetoFrontier(T newSolution) {
+        ArrayList<T> removed = insert(newSolution);
+        if (removed != null && size() > maxSize) {
+            coarsen(removed);
+        }
+        return removed;
+    }
+
+    private ArrayList<T> insert(T newSolution) {
+        if (newSolution.getNumObj() != epsilon.length) {
+            throw new IllegalArgumentException("newSolution.getNumObj() = " + newSolution.getNumObj());
+        }
+        for (int k = 0; k < epsilon.length; k++) {
+            box[k] = (long) Math.floor(newSolution.getObj(k) / epsilon[k]);
+        }
+
+        ArrayList<T> removed = null;
+        for (int i = size() - 1; i >= 0; i--) {
+            long[] b = boxes.get(i);
+            boolean better = true, worse = true;
+            for (int k = 0; k < box.length; k++) {
+                if (b[k] > box[k]) better = false;
+                if (b[k] < box[k]) worse = false;
+            }
+
+            boolean replace;
+            if (better && worse) {
+                // Same box: keep the dominating solution, or else the one closer to the lower corner.
+                replace = compareInBox(newSolution, get(i)) < 0;
+            }
+            else if (better) {
+                replace = false;
+            }
+            else {
+                replace = worse;
+                if (!replace) continue;
+            }
+
+            // Boxes of the archive do not dominate each other, so nothing was removed before a rejection.
+            if (!replace) return null;
+            if (removed == null) removed = new ArrayList<>();
+            removed.add(removeAt(i));
+        }
+
+        boxes.add(box.clone());
+        add(newSolution);
+        return (removed == null) ? new ArrayList<>() : removed;
+    }
+
+    /**
+     * @return Negative, if a should be kept instead of b (which share a box).
+     */
+    private int compareInBox(T a, T b) {
+        boolean aBetter = true, bBetter = true;
+        double aDist = 0.0, bDist = 0.0;
+        for (int k = 0; k < epsilon.length; k++) {
+            double ak = a.getObj(k), bk = b.getObj(k);
+            if (ak > bk) aBetter = false;
+            if (bk > ak) bBetter = false;
+            double corner = box[k] * epsilon[k];
+            aDist += (ak - corner) * (ak - corner);
+            bDist += (bk - corner) * (bk - corner);
+        }
+        if (bBetter) return 1;
+        if (aBetter) return -1;
+        return (aDist < bDist) ? -1 : 1;
+    }
+
+    private T removeAt(int i) {
+        int last = size() - 1;
+        T s = get(i);
+        set(i, get(last));
+        boxes.set(i, boxes.get(last));
+        remove(last);
+        boxes.remove(last);
+        return s;
+    }
+
+    /**
+     * Doubles the boxes until the archive fits into the maximum size.
+     */
+    private void coarsen(ArrayList<T> removed) {
+        while (size() > maxSize) {
+            for (int k = 0; k < epsilon.length; k++) {
+                epsilon[k] *= 2;
+            }
+            ArrayList<T> archived = new ArrayList<>(this);
+            clear();
+            boxes.clear();
+            for (T s : archived) {
+                ArrayList<T> r = insert(s);
+                if (r == null) removed.add(s);
+                else removed.addAll(r);
+            }
+        }
+    }
+
+    /**
+     * @return Current box size per objective.
+     */
+    public double[] getEpsilon() {
+        return epsilon.clone();
+    }
+
+    /**
+     * @return Maximum number of solutions.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
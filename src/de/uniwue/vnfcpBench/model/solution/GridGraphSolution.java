@@ -36,6 +36,20 @@ public class GridGraphSolution implements Solution {
         return new double[]{cpu, hops};
     }
 
+    @Override
+    public double getObj(int i) {
+        switch (i) {
+            case 0: return cpu;
+            case 1: return hops;
+            default: throw new IndexOutOfBoundsException("i = " + i);
+        }
+    }
+
+    @Override
+    public int getNumObj() {
+        return 2;
+    }
+
     @Override
     public int getInstances() {
         return getUsedNodes();
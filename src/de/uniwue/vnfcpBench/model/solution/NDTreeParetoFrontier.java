@@ -0,0 +1,390 @@
+package de.uniwue.vnfcpBench.model.solution;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+
+/**
+ * Pareto Frontier for any number of objectives, which indexes its solutions in an ND-tree
+ * (Jaszkiewicz and Lust, "ND-Tree-based update", IEEE TEVC 2018).
+ * <p>
+ * Each tree node knows the ideal point (minimum of each objective) and the nadir point (maximum)
+ * of the solutions below it. If a new point is dominated by a node's nadir point, it is dominated by
+ * one of its solutions; if it dominates the ideal point, it dominates all of them; and if neither
+ * the ideal point dominates it nor it dominates the nadir point, none of the solutions below
+ * matters. So an update usually visits only a few paths instead of all solutions.
+ * New solutions go to the child whose box center is closest, and leaves that grow too large are split.
+ * <p>
+ * The list itself contains the same solutions (in no particular order), so the frontier can be used
+ * like a {@link ParetoFrontier}. Solutions must only be added via {@link #updateParetoFrontier(Solution)}.
+ */
+public class NDTreeParetoFrontier<T extends Solution> extends ParetoFrontier<T> {
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_LEAF_SIZE = 20;
+
+    private final int maxLeafSize;
+    private int numObj = -1;
+    private int numChildren;
+    private TreeNode<T> root;
+    // Index of each solution in the list, for removal in O(1):
+    private final IdentityHashMap<T, Integer> positions = new IdentityHashMap<>();
+
+    /**
+     * @param maxLeafSize Maximum number of solutions per leaf.
+     */
+    public NDTreeParetoFrontier(int maxLeafSize) {
+        if (maxLeafSize < 2) {
+            throw new IllegalArgumentException("maxLeafSize = " + maxLeafSize);
+        }
+        this.maxLeafSize = maxLeafSize;
+    }
+
+    public NDTreeParetoFrontier() {
+        this(DEFAULT_LEAF_SIZE);
+    }
+
+    /**
+     * Inserts the solutions one by one, so dominated ones (and later ones with equal objectives) are skipped.
+     *
+     * @param c Solutions.
+     */
+    public NDTreeParetoFrontier(Collection<? extends T> c) {
+        this(DEFAULT_LEAF_SIZE);
+        for (T s : c) {
+            updateParetoFrontier(s);
+        }
+    }
+
+    /**
+     * Same contract as {@link ParetoFrontier#updateParetoFrontier(Solution)}.
+     *
+     * @param newSolution New solution (with as many objectives as the previous ones).
+     * @return <tt>null</tt>, if the new solution was not inserted;
+     * otherwise, an ArrayList with all removed points is returned.
+     */
+    @Override
+    public ArrayList<T> updateParetoFrontier(T newSolution) {
+        if (numObj < 0) {
+            numObj = newSolution.getNumObj();
+            numChildren = numObj + 1;
+        }
+        else if (newSolution.getNumObj() != numObj) {
+            throw new IllegalArgumentException("newSolution.getNumObj() = " + newSolution.getNumObj());
+        }
+
+        double[] obj = new double[numObj];
+        for (int k = 0; k < numObj; k++) obj[k] = newSolution.getObj(k);
+
+        ArrayList<T> removed = new ArrayList<>();
+        if (root != null) {
+            if (!update(root, obj, removed)) return null;
+            if (root.isEmpty()) root = null;
+            else if (!root.isLeaf() && root.children.size() == 1) root = root.children.get(0);
+        }
+
+        Entry<T> e = new Entry<>(newSolution, obj);
+        if (root == null) {
+            root = new TreeNode<>();
+            root.add(e);
+        }
+        else {
+            insert(root, e);
+        }
+
+        for (T s : removed) {
+            removeFromList(s);
+        }
+        positions.put(newSolution, size());
+        add(newSolution);
+        return removed;
+    }
+
+    /**
+     * Checks whether a point is dominated by (or equal to) a solution of the frontier.
+     *
+     * @param obj Objectives of the point.
+     * @return <tt>true</tt>, if {@link #updateParetoFrontier(Solution)} would reject it.
+     */
+    public boolean isDominated(double[] obj) {
+        return root != null && isDominated(root, obj);
+    }
+
+    private boolean isDominated(TreeNode<T> n, double[] obj) {
+        if (weaklyDominates(n.nadir, obj)) return true;
+        if (!weaklyDominates(n.ideal, obj)) return false;
+
+        if (n.isLeaf()) {
+            for (Entry<T> e : n.entries) {
+                if (weaklyDominates(e.obj, obj)) return true;
+            }
+            return false;
+        }
+        for (TreeNode<T> c : n.children) {
+            if (isDominated(c, obj)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes all solutions below the node that the point dominates.
+     *
+     * @return <tt>false</tt>, if the point is dominated by (or equal to) a solution below the node.
+     */
+    private boolean update(TreeNode<T> n, double[] obj, ArrayList<T> removed) {
+        // All solutions below are at least as good:
+        if (weaklyDominates(n.nadir, obj)) return false;
+
+        // The point dominates all solutions below (none can be equal, since it differs from the ideal point):
+        if (weaklyDominates(obj, n.ideal) && !equal(obj, n.ideal)) {
+            collect(n, removed);
+            n.clear();
+            return true;
+        }
+
+        // Neither can a solution below dominate the point, nor can the point dominate one:
+        if (!weaklyDominates(n.ideal, obj) && !weaklyDominates(obj, n.nadir)) return true;
+
+        boolean changed = false;
+        if (n.isLeaf()) {
+            for (int i = n.entries.size() - 1; i >= 0; i--) {
+                Entry<T> e = n.entries.get(i);
+                if (weaklyDominates(e.obj, obj)) return false;
+                if (weaklyDominates(obj, e.obj)) {
+                    removed.add(e.solution);
+                    n.entries.set(i, n.entries.get(n.entries.size() - 1));
+                    n.entries.remove(n.entries.size() - 1);
+                    changed = true;
+                }
+            }
+        }
+        else {
+            for (int i = n.children.size() - 1; i >= 0; i--) {
+                TreeNode<T> c = n.children.get(i);
+                int before = removed.size();
+                if (!update(c, obj, removed)) return false;
+                if (removed.size() == before) continue;
+
+                changed = true;
+                if (c.isEmpty()) {
+                    n.children.set(i, n.children.get(n.children.size() - 1));
+                    n.children.remove(n.children.size() - 1);
+                }
+                else if (!c.isLeaf() && c.children.size() == 1) {
+                    n.children.set(i, c.children.get(0));
+                }
+            }
+        }
+        if (changed) n.updateBounds(numObj);
+        return true;
+    }
+
+    private void insert(TreeNode<T> n, Entry<T> e) {
+        while (!n.isLeaf()) {
+            n.include(e.obj);
+            TreeNode<T> best = null;
+            double bestDist = Double.POSITIVE_INFINITY;
+            for (TreeNode<T> c : n.children) {
+                double d = 0.0;
+                for (int k = 0; k < numObj; k++) {
+                    double diff = e.obj[k] - (c.ideal[k] + c.nadir[k]) / 2;
+                    d += diff * diff;
+                }
+                if (d < bestDist) {
+                    bestDist = d;
+                    best = c;
+                }
+            }
+            n = best;
+        }
+
+        n.add(e);
+        if (n.entries.size() > maxLeafSize) {
+            split(n);
+        }
+    }
+
+    /**
+     * Turns a full leaf into an inner node: the solutions that are farthest apart become the seeds of
+     * the new children, and every other solution joins the child with the closest box center.
+     */
+    private void split(TreeNode<T> n) {
+        ArrayList<Entry<T>> entries = n.entries;
+        int size = entries.size();
+
+        // First seed: the solution with the highest average distance to all others.
+        // Further seeds: the solution with the highest distance to its closest seed so far.
+        double[] minDist = new double[size];
+        int first = 0;
+        double best = -1.0;
+        for (int i = 0; i < size; i++) {
+            double sum = 0.0;
+            for (int j = 0; j < size; j++) sum += distance(entries.get(i).obj, entries.get(j).obj);
+            if (sum > best) {
+                best = sum;
+                first = i;
+            }
+        }
+
+        n.entries = null;
+        n.children = new ArrayList<>(numChildren);
+        boolean[] seeded = new boolean[size];
+        int seed = first;
+        for (int c = 0; c < Math.min(numChildren, size); c++) {
+            seeded[seed] = true;
+            TreeNode<T> child = new TreeNode<>();
+            child.add(entries.get(seed));
+            n.children.add(child);
+
+            int next = -1;
+            best = -1.0;
+            for (int i = 0; i < size; i++) {
+                double d = distance(entries.get(i).obj, entries.get(seed).obj);
+                minDist[i] = (c == 0) ? d : Math.min(minDist[i], d);
+                if (!seeded[i] && minDist[i] > best) {
+                    best = minDist[i];
+                    next = i;
+                }
+            }
+            if (next < 0) break;
+            seed = next;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (seeded[i]) continue;
+            Entry<T> e = entries.get(i);
+            TreeNode<T> closest = null;
+            double closestDist = Double.POSITIVE_INFINITY;
+            for (TreeNode<T> c : n.children) {
+                double d = 0.0;
+                for (int k = 0; k < numObj; k++) {
+                    double diff = e.obj[k] - (c.ideal[k] + c.nadir[k]) / 2;
+                    d += diff * diff;
+                }
+                if (d < closestDist) {
+                    closestDist = d;
+                    closest = c;
+                }
+            }
+            closest.add(e);
+        }
+    }
+
+    private static double distance(double[] a, double[] b) {
+        double d = 0.0;
+        for (int k = 0; k < a.length; k++) {
+            double diff = a[k] - b[k];
+            d += diff * diff;
+        }
+        return Math.sqrt(d);
+    }
+
+    private void collect(TreeNode<T> n, ArrayList<T> removed) {
+        if (n.isLeaf()) {
+            for (Entry<T> e : n.entries) removed.add(e.solution);
+        }
+        else {
+            for (TreeNode<T> c : n.children) collect(c, removed);
+        }
+    }
+
+    private void removeFromList(T s) {
+        int i = positions.remove(s);
+        T last = remove(size() - 1);
+        if (last != s) {
+            set(i, last);
+            positions.put(last, i);
+        }
+    }
+
+    /**
+     * @return Whether a is at least as good as b in every objective.
+     */
+    private static boolean weaklyDominates(double[] a, double[] b) {
+        for (int k = 0; k < a.length; k++) {
+            if (a[k] > b[k]) return false;
+        }
+        return true;
+    }
+
+    private static boolean equal(double[] a, double[] b) {
+        for (int k = 0; k < a.length; k++) {
+            if (a[k] != b[k]) return false;
+        }
+        return true;
+    }
+
+    private static class Entry<T> {
+        final T solution;
+        final double[] obj;
+
+        Entry(T solution, double[] obj) {
+            this.solution = solution;
+            this.obj = obj;
+        }
+    }
+
+    /**
+     * Leaf (with entries) or inner node (with children), and the bounding box of the solutions below.
+     */
+    private static class TreeNode<T> {
+        ArrayList<Entry<T>> entries;
+        ArrayList<TreeNode<T>> children;
+        double[] ideal;
+        double[] nadir;
+
+        TreeNode() {
+            this.entries = new ArrayList<>();
+        }
+
+        boolean isLeaf() {
+            return entries != null;
+        }
+
+        boolean isEmpty() {
+            return isLeaf() ? entries.isEmpty() : children.isEmpty();
+        }
+
+        void clear() {
+            entries = new ArrayList<>();
+            children = null;
+        }
+
+        void add(Entry<T> e) {
+            entries.add(e);
+            include(e.obj);
+        }
+
+        void include(double[] obj) {
+            if (ideal == null) {
+                ideal = obj.clone();
+                nadir = obj.clone();
+                return;
+            }
+            for (int k = 0; k < obj.length; k++) {
+                if (obj[k] < ideal[k]) ideal[k] = obj[k];
+                if (obj[k] > nadir[k]) nadir[k] = obj[k];
+            }
+        }
+
+        /**
+         * Shrinks the bounds to the remaining solutions (only for non-empty nodes).
+         */
+        void updateBounds(int numObj) {
+            if (isEmpty()) return;
+            ideal = null;
+            nadir = null;
+            if (isLeaf()) {
+                for (Entry<T> e : entries) include(e.obj);
+            }
+            else {
+                for (TreeNode<T> c : children) {
+                    include(c.ideal);
+                    for (int k = 0; k < numObj; k++) {
+                        if (c.nadir[k] > nadir[k]) nadir[k] = c.nadir[k];
+                    }
+                }
+            }
+        }
+    }
+}
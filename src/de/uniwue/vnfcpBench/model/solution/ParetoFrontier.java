@@ -1,8 +1,11 @@
 package de.uniwue.vnfcpBench.model.solution;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * This class computes the Pareto Frontier from a collection of solutions.
@@ -46,25 +49,33 @@ public class ParetoFrontier<T extends Solution> extends ArrayList<T> {
      * otherwise, an ArrayList with all removed points is returned.
      */
     public ArrayList<T> updateParetoFrontier(T newSolution) {
-        ArrayList<T> removed = new ArrayList<>();
+        ArrayList<T> removed = null;
+        int numObj = newSolution.getNumObj();
         int i = 0;
         while (i < size()) {
-            double[] iVector = get(i).getObj();
-            double[] nVector = newSolution.getObj();
-            int dominance = getDominance(iVector, nVector);
+            T iSolution = get(i);
 
-            // Is the new point dominated by the i-th solution? -> Abort.
-            if (dominance == -1 || Arrays.equals(nVector, iVector)) return removed;
+            // Compare objective by objective, so no vectors are copied:
+            boolean iBetter = true, newBetter = true;
+            for (int k = 0; k < numObj; k++) {
+                double iObj = iSolution.getObj(k);
+                double nObj = newSolution.getObj(k);
+                if (iObj > nObj) iBetter = false;
+                if (nObj > iObj) newBetter = false;
+            }
+
+            // Is the new point dominated by (or equal to) the i-th solution? -> Abort.
+            if (iBetter) return removed;
 
             // Is the i-th solution dominated by the new point? -> Remove i-th element.
             // (Changes list's order for performance reasons.)
-            else if (dominance == +1) {
+            else if (newBetter) {
                 // Switch i-th element with the last:
-                T temp = get(i);
                 set(i, get(size()-1));
-                set(size()-1, temp);
+                set(size()-1, iSolution);
 
                 // Remove last:
+                if (removed == null) removed = new ArrayList<>();
                 removed.add(remove(size()-1));
             }
             else {
@@ -76,7 +87,189 @@ public class ParetoFrontier<T extends Solution> extends ArrayList<T> {
         // All newly dominated points are already removed here.
         add(newSolution);
 
-        return removed;
+        return (removed == null) ? new ArrayList<>() : removed;
+    }
+
+    /**
+     * Computes the Pareto Frontier of many solutions at once. The result is the same as inserting them
+     * one by one with {@link #updateParetoFrontier(Solution)}: among equal objective vectors, the first
+     * solution is kept.
+     * <p>
+     * The solutions are sorted lexicographically by their objectives (ties by their position), so no
+     * solution can be dominated by a later one. With two objectives, a solution then belongs to the
+     * frontier exactly if its second objective is below the ones of all solutions before it. With three,
+     * the solutions before it are kept as a staircase of their (second, third) objectives, which is
+     * searched in O(log n). With more, Kung's divide and conquer keeps the frontier of the first half
+     * and the solutions of the second half's frontier that no solution of the first half dominates.
+     *
+     * @param solutions Solutions (with the same number of objectives).
+     * @return Pareto Frontier, sorted lexicographically
+     * (a {@link BiObjectiveParetoFrontier} for two objectives).
+     */
+    public static <T extends Solution> ParetoFrontier<T> nonDominated(Collection<? extends T> solutions) {
+        if (!solutions.isEmpty() && solutions.iterator().next().getNumObj() == 2) {
+            return BiObjectiveParetoFrontier.nonDominated(solutions);
+        }
+
+        List<T> list = new ArrayList<>(solutions);
+        int[] front = nonDominatedIndices(list);
+        ParetoFrontier<T> pf = new ParetoFrontier<>(front.length);
+        for (int i : front) {
+            pf.add(list.get(i));
+        }
+        return pf;
+    }
+
+    /**
+     * Merges frontiers (e.g. of parallel workers or shards) with {@link #nonDominated(Collection)}.
+     * Earlier frontiers win among equal objective vectors.
+     *
+     * @param frontiers Frontiers, in order.
+     * @return Pareto Frontier of all solutions, sorted lexicographically.
+     */
+    public static <T extends Solution> ParetoFrontier<T> merge(Collection<? extends Collection<? extends T>> frontiers) {
+        ArrayList<T> all = new ArrayList<>();
+        for (Collection<? extends T> c : frontiers) {
+            all.addAll(c);
+        }
+        return nonDominated(all);
+    }
+
+    /**
+     * @return Indices of the non-dominated solutions (the first of equal ones), sorted lexicographically.
+     */
+    static int[] nonDominatedIndices(List<? extends Solution> solutions) {
+        int n = solutions.size();
+        if (n == 0) return new int[0];
+
+        // Copy the objectives once into one flat array, since each is compared many times:
+        int numObj = solutions.get(0).getNumObj();
+        double[] obj = new double[n * numObj];
+        for (int i = 0; i < n; i++) {
+            Solution s = solutions.get(i);
+            for (int k = 0; k < numObj; k++) {
+                obj[i * numObj + k] = s.getObj(k);
+            }
+        }
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) index[i] = i;
+        sortLexicographically(obj, index, n, numObj);
+
+        // From here on, positions in the sorted order:
+        int size = 0;
+        int[] front = new int[n];
+        if (numObj == 1) {
+            front[size++] = 0;
+        }
+        else if (numObj == 2) {
+            double min = Double.POSITIVE_INFINITY;
+            for (int p = 0; p < n; p++) {
+                if (obj[2 * p + 1] < min) {
+                    front[size++] = p;
+                    min = obj[2 * p + 1];
+                }
+            }
+        }
+        else if (numObj == 3) {
+            // (second, third) objectives of the frontier so far; the third decreases as the second increases:
+            TreeMap<Double, Double> staircase = new TreeMap<>();
+            for (int p = 0; p < n; p++) {
+                double o1 = obj[3 * p + 1], o2 = obj[3 * p + 2];
+                Map.Entry<Double, Double> floor = staircase.floorEntry(o1);
+                if (floor != null && floor.getValue() <= o2) continue;
+
+                front[size++] = p;
+                Iterator<Double> above = staircase.tailMap(o1, true).values().iterator();
+                while (above.hasNext() && above.next() >= o2) {
+                    above.remove();
+                }
+                staircase.put(o1, o2);
+            }
+        }
+        else {
+            size = kung(obj, numObj, 0, n, front);
+        }
+
+        int[] indices = new int[size];
+        for (int i = 0; i < size; i++) {
+            indices[i] = index[front[i]];
+        }
+        return indices;
+    }
+
+    /**
+     * Writes the frontier of the positions [from, to) to {@code front[from...]}, in order.
+     *
+     * @return Size of the frontier.
+     */
+    private static int kung(double[] obj, int numObj, int from, int to, int[] front) {
+        if (to - from == 1) {
+            front[from] = from;
+            return 1;
+        }
+
+        int mid = (from + to) >>> 1;
+        int top = kung(obj, numObj, from, mid, front);
+        int bottom = kung(obj, numObj, mid, to, front);
+
+        // Solutions of the second half can only be dominated, since they come later:
+        int size = top;
+        for (int b = mid; b < mid + bottom; b++) {
+            boolean dominated = false;
+            for (int t = from; t < from + top && !dominated; t++) {
+                dominated = weaklyDominates(obj, numObj, front[t], front[b]);
+            }
+            if (!dominated) front[from + size++] = front[b];
+        }
+        return size;
+    }
+
+    private static boolean weaklyDominates(double[] obj, int numObj, int a, int b) {
+        for (int k = 0; k < numObj; k++) {
+            if (obj[a * numObj + k] > obj[b * numObj + k]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sorts the rows of {@code obj} (and the indices with them) lexicographically, ties by index.
+     * A merge sort that moves the rows themselves, so comparisons read contiguous memory.
+     */
+    private static void sortLexicographically(double[] obj, int[] index, int n, int numObj) {
+        double[] objBuffer = new double[obj.length];
+        int[] indexBuffer = new int[n];
+        double[] from = obj, to = objBuffer;
+        int[] fromIndex = index, toIndex = indexBuffer;
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n), hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid || j < hi) {
+                    // Take from the right run only if it is strictly smaller, so equal rows keep their order:
+                    int src = (i < mid && (j >= hi || compare(from, numObj, j, i) >= 0)) ? i++ : j++;
+                    System.arraycopy(from, src * numObj, to, k * numObj, numObj);
+                    toIndex[k++] = fromIndex[src];
+                }
+            }
+            double[] t = from;
+            from = to;
+            to = t;
+            int[] ti = fromIndex;
+            fromIndex = toIndex;
+            toIndex = ti;
+        }
+        if (from != obj) {
+            System.arraycopy(from, 0, obj, 0, obj.length);
+            System.arraycopy(fromIndex, 0, index, 0, n);
+        }
+    }
+
+    private static int compare(double[] obj, int numObj, int a, int b) {
+        for (int k = 0; k < numObj; k++) {
+            int c = Double.compare(obj[a * numObj + k], obj[b * numObj + k]);
+            if (c != 0) return c;
+        }
+        return 0;
     }
 
     /**
@@ -4,4 +4,21 @@ public interface Solution {
 	double[] getObj();
 	int getInstances();
 	int getUsedNodes();
+
+	/**
+	 * Returns a single objective value, without copying the objective vector (if overridden).
+	 *
+	 * @param i Index of the objective.
+	 * @return Same as {@code getObj()[i]}.
+	 */
+	default double getObj(int i) {
+		return getObj()[i];
+	}
+
+	/**
+	 * @return Same as {@code getObj().length}.
+	 */
+	default int getNumObj() {
+		return getObj().length;
+	}
 }
@@ -0,0 +1,282 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes the number of VNF instances (bins) that a multiset of bandwidth demands (items) needs.
+ * All methods work on the first {@code count} elements of a {@code double[]} that is sorted
+ * in descending order (see {@link #sortDescending(double[], int)}).
+ * <p>
+ * {@link #minBins(double[], int, double)} is exact: it starts from the first fit decreasing solution,
+ * stops early if that meets the Martello-Toth lower bound L2, and otherwise searches for a packing
+ * with fewer bins by branch-and-bound. Results are kept in a bounded LRU cache keyed by the sorted
+ * items and the capacity, since the enumeration re-packs the same demands over and over.
+ * <p>
+ * An object is not thread-safe, so use one per thread.
+ */
+public class BinPacking {
+    // Slack for bounds, so that floating point noise never overestimates:
+    private static final double EPSILON = 1e-9;
+
+    private final int cacheSize;
+    private final LinkedHashMap<Key, Integer> cache;
+    private final Key probe;
+    private long hits, misses;
+
+    // Scratch space of the search:
+    private double[] loads;
+
+    /**
+     * @param cacheSize Maximum number of cached results (0 = no caching).
+     */
+    public BinPacking(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize = " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<Key, Integer>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Integer> eldest) {
+                return size() > BinPacking.this.cacheSize;
+            }
+        };
+        this.probe = new Key();
+        this.loads = new double[16];
+    }
+
+    /**
+     * Returns the minimum number of bins of the given capacity for the items.
+     *
+     * @param items    Item sizes, sorted in descending order.
+     * @param count    Number of items to consider.
+     * @param capacity Capacity of each bin.
+     * @return Minimum number of bins.
+     */
+    public int minBins(double[] items, int count, double capacity) {
+        if (count == 0) return 0;
+
+        if (cacheSize > 0) {
+            probe.set(items, count, capacity);
+            Integer cached = cache.get(probe);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        int bins = solve(items, count, capacity);
+        if (cacheSize > 0) {
+            cache.put(new Key(Arrays.copyOf(items, count), count, capacity), bins);
+        }
+        return bins;
+    }
+
+    private int solve(double[] items, int count, double capacity) {
+        if (loads.length < count) loads = new double[Math.max(count, loads.length * 2)];
+        int upper = firstFit(items, count, capacity, loads);
+        int lower = lowerBound(items, count, capacity);
+        if (upper <= lower) return upper;
+
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) sum += items[i];
+
+        for (int maxBins = lower; maxBins < upper; maxBins++) {
+            Arrays.fill(loads, 0, maxBins, 0.0);
+            if (pack(items, count, capacity, maxBins, 0, 0, sum, maxBins * capacity)) {
+                return maxBins;
+            }
+        }
+        return upper;
+    }
+
+    /**
+     * Tries to put the items from {@code index} on into {@code maxBins} bins, of which {@code used} are non-empty.
+     *
+     * @param remaining Sum of the items from {@code index} on.
+     * @param free      Free capacity of all bins.
+     */
+    private boolean pack(double[] items, int count, double capacity, int maxBins, int index, int used, double remaining, double free) {
+        if (index >= count) return true;
+        // Not enough room left, even if the items could be split:
+        if (remaining > free + EPSILON * capacity) return false;
+
+        double item = items[index];
+        // Empty bins are interchangeable, so at most one new bin is opened:
+        for (int b = 0; b < Math.min(used + 1, maxBins); b++) {
+            double load = loads[b];
+            if (load + item > capacity) continue;
+
+            // So are bins with equal loads, so only try the first of them:
+            boolean seen = false;
+            for (int b2 = 0; b2 < b; b2++) {
+                if (loads[b2] == load) {
+                    seen = true;
+                    break;
+                }
+            }
+            if (seen) continue;
+
+            loads[b] = load + item;
+            boolean packed = pack(items, count, capacity, maxBins, index + 1, Math.max(used, b + 1), remaining - item, free - item);
+            loads[b] = load;
+            if (packed) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Martello-Toth lower bound L2 (at least the trivial bound ceil(sum / capacity)).
+     *
+     * @param items    Item sizes, sorted in descending order.
+     * @param count    Number of items to consider.
+     * @param capacity Capacity of each bin.
+     * @return Lower bound for the number of bins.
+     */
+    public static int lowerBound(double[] items, int count, double capacity) {
+        double sum = 0.0;
+        for (int i = 0; i < count; i++) sum += items[i];
+        int bound = ceil(sum / capacity);
+
+        // For each threshold alpha <= capacity/2 (0 and all item sizes up to capacity/2):
+        //  J1 = items > capacity - alpha, J2 = items in (capacity/2, capacity - alpha], J3 = items in [alpha, capacity/2].
+        // J1 and J2 items need a bin each, and J3 items only fit into the space that J2 items leave.
+        double lastAlpha = -1.0;
+        for (int a = count; a >= 0; a--) {
+            double alpha = (a == count) ? 0.0 : items[a];
+            if (alpha > capacity / 2) break;
+            if (alpha == lastAlpha) continue;
+            lastAlpha = alpha;
+
+            int j1 = 0, j2 = 0;
+            double sumJ2 = 0.0, sumJ3 = 0.0;
+            for (int i = 0; i < count; i++) {
+                double w = items[i];
+                if (w > capacity - alpha) {
+                    j1++;
+                }
+                else if (w > capacity / 2) {
+                    j2++;
+                    sumJ2 += w;
+                }
+                else if (w >= alpha) {
+                    sumJ3 += w;
+                }
+            }
+
+            int l = j1 + j2 + Math.max(0, ceil((sumJ3 - (j2 * capacity - sumJ2)) / capacity));
+            bound = Math.max(bound, l);
+        }
+        return bound;
+    }
+
+    /**
+     * Number of bins used by first fit on the items.
+     * (First fit decreasing, if the items are sorted in descending order.)
+     *
+     * @param items    Item sizes.
+     * @param count    Number of items to consider.
+     * @param capacity Capacity of each bin.
+     * @return Number of bins used.
+     */
+    public static int firstFit(double[] items, int count, double capacity) {
+        return firstFit(items, count, capacity, new double[count]);
+    }
+
+    private static int firstFit(double[] items, int count, double capacity, double[] bins) {
+        if (bins.length < count) bins = new double[count];
+
+        int numBins = 0;
+        for (int i = 0; i < count; i++) {
+            double d = items[i];
+            int aktuellerBin = 0;
+            // Request does not fit, but more bins exist:
+            while (aktuellerBin < numBins && bins[aktuellerBin] + d > capacity) {
+                aktuellerBin++;
+            }
+            // Current bin does not exist? -> Create new one, add request:
+            if (aktuellerBin == numBins) {
+                bins[numBins++] = d;
+            }
+            // Request fits into current bin:
+            else {
+                bins[aktuellerBin] = bins[aktuellerBin] + d;
+            }
+        }
+
+        return numBins;
+    }
+
+    /**
+     * Sorts the first {@code count} elements in descending order.
+     */
+    public static void sortDescending(double[] items, int count) {
+        Arrays.sort(items, 0, count);
+        for (int i = 0, k = count - 1; i < k; i++, k--) {
+            double t = items[i];
+            items[i] = items[k];
+            items[k] = t;
+        }
+    }
+
+    private static int ceil(double x) {
+        return (int) Math.ceil(x - EPSILON);
+    }
+
+    public long getCacheHits() {
+        return hits;
+    }
+
+    public long getCacheMisses() {
+        return misses;
+    }
+
+    /**
+     * Sorted items and capacity. The probe key is reused for lookups, so they do not allocate.
+     */
+    private static class Key {
+        private double[] items;
+        private int count;
+        private double capacity;
+        private int hash;
+
+        Key() {
+        }
+
+        Key(double[] items, int count, double capacity) {
+            set(items, count, capacity);
+        }
+
+        void set(double[] items, int count, double capacity) {
+            this.items = items;
+            this.count = count;
+            this.capacity = capacity;
+
+            int h = Double.hashCode(capacity);
+            for (int i = 0; i < count; i++) {
+                h = 31 * h + Double.hashCode(items[i]);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+
+            Key k = (Key) o;
+            if (hash != k.hash || count != k.count || Double.compare(capacity, k.capacity) != 0) return false;
+            for (int i = 0; i < count; i++) {
+                if (Double.compare(items[i], k.items[i]) != 0) return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -4,12 +4,19 @@ import de.uniwue.vnfcpBench.model.*;
 import de.uniwue.vnfcpBench.model.factory.TopologyFileReader;
 import de.uniwue.vnfcpBench.model.factory.TrafficRequestsReader;
 import de.uniwue.vnfcpBench.model.factory.VnfLibReader;
+import de.uniwue.vnfcpBench.model.solution.BiObjectiveParetoFrontier;
+import de.uniwue.vnfcpBench.model.solution.ConcurrentParetoFrontier;
 import de.uniwue.vnfcpBench.model.solution.ParetoFrontier;
 import de.uniwue.vnfcpBench.model.solution.GridGraphSolution;
 
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
@@ -20,20 +27,88 @@ import java.util.stream.Collectors;
  * @author alex
  */
 public class BruteForceSolver {
+    /**
+     * Indices of the prune causes in {@link #getPruneCounts()}.
+     */
+    public static final int PRUNED_DELAY = 0, PRUNED_LINK = 1, PRUNED_CPU = 2, PRUNED_DOMINATED = 3;
+    private static final String[] PRUNE_CAUSES = {"delay", "link", "cpu", "dominated"};
+    // Slack for bounds that are summed in a different order than the exact checks:
+    private static final double BOUND_EPSILON = 1e-9;
+    // Cached bin packing results per worker:
+    private static final int BIN_PACKING_CACHE_SIZE = 1 << 14;
+    // Minimum number of subspaces with checkpoints, so that the last one is not too far back:
+    private static final long CHECKPOINT_SUBSPACES = 4096;
+    // Minimum number of subspaces per shard:
+    private static final long SHARD_SUBSPACES = 256;
+
     private ProblemInstance inst;
     private ParetoFrontier<GridGraphSolution> pf;
+    // Solutions of all parallel workers, so that they can prune with each other's results:
+    private ConcurrentParetoFrontier<GridGraphSolution> shared;
     private VNF[] requestedTypes;
     private Node[] cpuLocations;
     private HashMap<VNF, Integer> vnfToId;
     private HashMap<Node, Integer> nodeToId;
-    private ArrayList<Double>[][] usedCapacities;
-    private HashMap<Link, Double> usedBandwidths;
-    private double solved, all, lastPercent;
-    private int[][] requiredInstances;
-    private ArrayList<Double> bins;
+    private CsrGraph graph;
+    private AllPairsShortestPaths bfs;
+    private int[] positionRequest;
+    private int[] positionVnf;
+    private int parallelism;
+    private boolean pruning;
+    private boolean grayCode;
+    private boolean symmetry;
+    private boolean delayConstrained;
+    private double all;
+    private SolverMetrics metrics;
+    private long reportInterval;
+    private Path metricsCsv;
+    private int shardIndex, shardCount;
+    private Path checkpointFile;
+    private long checkpointInterval;
+    private Checkpoint checkpoint;
+    private volatile double lastCheckpoint;
+    // Whether a worker is writing the checkpoint file (the others do not wait for it):
+    private final AtomicBoolean saving = new AtomicBoolean();
+
+    // Dense evaluation tables. Node ids are CPU locations first (same id as in cpuLocations), then request endpoints.
+    // With delay-constrained routing, the delays are the smallest ones of any path (lower bounds for the pruning):
+    private double[][] pathDelay;
+    private double[][] pathHops;
+    private int[][][] pathLinks;
+    // Hop-delay frontier of the paths between each pair, for delay-constrained routing:
+    private double[][][] frontierHops;
+    private double[][][] frontierDelay;
+    private int[][][][] frontierLinks;
+    private double[] linkCapacity;
+    private int[] ingressId;
+    private int[] egressId;
+    private int[][] requestTypes;
+    private double[][] requestVnfDelays;
+    private double[] typeCapacity;
+
+    // Bounds for branch-and-bound, indexed by [position][cpu location] or [request]:
+    private double[][] remainingDelay;
+    private double[][] remainingHops;
+    private double[] minHopsFrom;
+    private double[] vnfDelay;
+    private int[] positionType;
+    private int[] cpuPerInstance;
+    private int[] globalInstances;
+    private double[] subtreeSize;
+    private long[][] pruneCounts;
+
+    // Interchangeable requests: previous request of the same class (or -1), and the resulting shrinkage:
+    private int[] symmetricPrev;
+    private int numClasses;
+    private double symmetryFactor;
+    private double subtreeWeight;
 
     public BruteForceSolver(ProblemInstance inst) {
         this.inst = inst;
+        this.parallelism = 1;
+        this.pruning = true;
+        this.shardCount = 1;
+        this.reportInterval = 10000;
 
         // Which instance types are requested?
         requestedTypes = Arrays.stream(inst.reqs).flatMap(r -> Arrays.stream(r.vnfSequence)).distinct().toArray(VNF[]::new);
@@ -43,261 +118,707 @@ public class BruteForceSolver {
         }
 
         // Where are computational resources?
-        cpuLocations = inst.ng.getNodes().values().stream().filter(n -> n.cpuCapacity > 0.0).distinct().toArray(Node[]::new);
+        cpuLocations = PlacementSpliterator.getCpuLocations(inst);
         nodeToId = new HashMap<>();
         for (int i = 0; i < cpuLocations.length; i++) {
             nodeToId.put(cpuLocations[i], i);
         }
 
-        // Prepare data structures globally, so less work for the GC:
-        usedBandwidths = new HashMap<>();
-        usedCapacities = new ArrayList[requestedTypes.length][cpuLocations.length];
-        for (int v = 0; v < requestedTypes.length; v++) {
-            for (int n = 0; n < cpuLocations.length; n++) {
-                usedCapacities[v][n] = new ArrayList<>();
+        // Flatten (request, VNF) pairs into placement positions, in recursion order:
+        int numPositions = Arrays.stream(inst.reqs).mapToInt(r -> r.vnfSequence.length).sum();
+        positionRequest = new int[numPositions];
+        positionVnf = new int[numPositions];
+        int p = 0;
+        for (int i = 0; i < inst.reqs.length; i++) {
+            for (int j = 0; j < inst.reqs[i].vnfSequence.length; j++) {
+                positionRequest[p] = i;
+                positionVnf[p] = j;
+                p++;
             }
         }
-        requiredInstances = new int[requestedTypes.length][cpuLocations.length];
-        bins = new ArrayList<>();
-    }
 
-    public ParetoFrontier<GridGraphSolution> solve() {
-        pf = new ParetoFrontier<>();
-        solved = 0.0;
-        all = Math.pow(Math.pow(cpuLocations.length, inst.reqs[0].vnfSequence.length), inst.reqs.length);
-        lastPercent = -0.1;
+        // Shortest paths are computed lazily by the graph, so do it here before workers share them:
+        graph = inst.ng.getCsr();
+        bfs = inst.ng.getBfsPaths();
 
-        // Prepare VNF Sequence Data Structure:
-        Node[][] vnfSeqs = new Node[inst.reqs.length][];
+        prepareTables();
+        prepareBounds();
+        prepareSymmetry();
+    }
+
+    /**
+     * Converts everything the evaluation needs into int-indexed, unboxed tables:
+     * delay, hops and link ids of the BFS paths between all CPU locations and request endpoints,
+     * link capacities, and the VNF types, capacities and delays of each request.
+     */
+    private void prepareTables() {
+        // Dense node ids:
+        ArrayList<Node> denseNodes = new ArrayList<>(Arrays.asList(cpuLocations));
+        HashMap<Node, Integer> denseIds = new HashMap<>(nodeToId);
+        ingressId = new int[inst.reqs.length];
+        egressId = new int[inst.reqs.length];
         for (int i = 0; i < inst.reqs.length; i++) {
-            vnfSeqs[i] = new Node[inst.reqs[i].vnfSequence.length];
+            for (Node n : new Node[]{inst.reqs[i].ingress, inst.reqs[i].egress}) {
+                if (!denseIds.containsKey(n)) {
+                    denseIds.put(n, denseNodes.size());
+                    denseNodes.add(n);
+                }
+            }
+            ingressId[i] = denseIds.get(inst.reqs[i].ingress);
+            egressId[i] = denseIds.get(inst.reqs[i].egress);
         }
 
-        // Start instance recursion:
-        recursionPaths(0, 0, vnfSeqs);
+        // Link ids of the graph:
+        linkCapacity = Arrays.copyOf(graph.bandwidth, graph.getNumLinks());
 
-        return pf;
+        // Paths between all pairs of dense nodes (links in backpointer order, from target to source):
+        int n = denseNodes.size();
+        pathDelay = new double[n][n];
+        pathHops = new double[n][n];
+        pathLinks = new int[n][n][];
+        for (int a = 0; a < n; a++) {
+            ShortestPathTree tree = bfs.getTree(graph.getId(denseNodes.get(a)));
+            for (int b = 0; b < n; b++) {
+                int target = graph.getId(denseNodes.get(b));
+                // Unreachable: infinite, and rejected by the delay check before its links are used.
+                pathDelay[a][b] = tree.delay[target];
+                pathHops[a][b] = tree.hops[target];
+                pathLinks[a][b] = tree.isReachable(target) ? tree.getPathLinks(target) : new int[0];
+            }
+        }
+
+        frontierHops = null;
+        frontierDelay = null;
+        frontierLinks = null;
+        if (delayConstrained) {
+            frontierHops = new double[n][n][];
+            frontierDelay = new double[n][n][];
+            frontierLinks = new int[n][n][][];
+            for (int a = 0; a < n; a++) {
+                for (int b = 0; b < n; b++) {
+                    List<LinkPath> paths = FlowUtils.hopDelayFrontier(graph, graph.getId(denseNodes.get(a)), graph.getId(denseNodes.get(b)));
+                    int k = paths.size();
+                    frontierHops[a][b] = new double[k];
+                    frontierDelay[a][b] = new double[k];
+                    frontierLinks[a][b] = new int[k][];
+                    for (int q = 0; q < k; q++) {
+                        LinkPath path = paths.get(q);
+                        frontierHops[a][b][q] = path.getHops();
+                        frontierDelay[a][b][q] = path.delay;
+                        // Backpointer order, as the BFS paths:
+                        int[] links = new int[path.links.length];
+                        for (int x = 0; x < links.length; x++) {
+                            links[x] = path.links[links.length - 1 - x];
+                        }
+                        frontierLinks[a][b][q] = links;
+                    }
+                    // The last path has the smallest delay of all:
+                    if (k > 0) pathDelay[a][b] = frontierDelay[a][b][k - 1];
+                }
+            }
+        }
+
+        // Requested VNF types:
+        requestTypes = new int[inst.reqs.length][];
+        requestVnfDelays = new double[inst.reqs.length][];
+        for (int i = 0; i < inst.reqs.length; i++) {
+            VNF[] seq = inst.reqs[i].vnfSequence;
+            requestTypes[i] = new int[seq.length];
+            requestVnfDelays[i] = new double[seq.length];
+            for (int j = 0; j < seq.length; j++) {
+                requestTypes[i][j] = vnfToId.get(seq[j]);
+                requestVnfDelays[i][j] = seq[j].delay;
+            }
+        }
+        typeCapacity = new double[requestedTypes.length];
+        cpuPerInstance = new int[requestedTypes.length];
+        for (int v = 0; v < requestedTypes.length; v++) {
+            typeCapacity[v] = requestedTypes[v].processingCapacity;
+            cpuPerInstance[v] = (int) requestedTypes[v].cpuRequired;
+        }
     }
 
-    public void recursionPaths(int currentRequest, int currentVnf, Node[][] vnfSeqs) {
-        if (currentRequest >= inst.reqs.length) {
-            // Evaluate current solution:
-            evalSolution(vnfSeqs);
+    /**
+     * Precomputes the optimistic estimates used to cut subtrees during the enumeration:
+     * the smallest delay and hop count that the remaining VNFs of a request can still achieve,
+     * and the smallest number of instances that the total demand for each VNF type requires.
+     */
+    private void prepareBounds() {
+        int numPositions = positionRequest.length;
+        remainingDelay = new double[numPositions][cpuLocations.length];
+        remainingHops = new double[numPositions][cpuLocations.length];
+        for (int p = numPositions - 1; p >= 0; p--) {
+            int i = positionRequest[p];
+            boolean last = positionVnf[p] == inst.reqs[i].vnfSequence.length - 1;
+            for (int c = 0; c < cpuLocations.length; c++) {
+                if (last) {
+                    remainingDelay[p][c] = pathDelay[c][egressId[i]];
+                    remainingHops[p][c] = pathHops[c][egressId[i]];
+                }
+                else {
+                    double d = Double.POSITIVE_INFINITY;
+                    double h = Double.POSITIVE_INFINITY;
+                    for (int c2 = 0; c2 < cpuLocations.length; c2++) {
+                        d = Math.min(d, pathDelay[c][c2] + remainingDelay[p+1][c2]);
+                        h = Math.min(h, pathHops[c][c2] + remainingHops[p+1][c2]);
+                    }
+                    remainingDelay[p][c] = d;
+                    remainingHops[p][c] = h;
+                }
+            }
         }
-        else {
-            if (currentVnf >= inst.reqs[currentRequest].vnfSequence.length) {
-                recursionPaths(currentRequest+1, 0, vnfSeqs);
+
+        // Hops that all requests from r onwards need at least:
+        minHopsFrom = new double[inst.reqs.length + 1];
+        vnfDelay = new double[inst.reqs.length];
+        int p = numPositions;
+        for (int i = inst.reqs.length - 1; i >= 0; i--) {
+            TrafficRequest r = inst.reqs[i];
+            p -= r.vnfSequence.length;
+            double h;
+            if (r.vnfSequence.length == 0) {
+                h = pathHops[ingressId[i]][egressId[i]];
             }
             else {
-                for (Node n : cpuLocations) {
-                    vnfSeqs[currentRequest][currentVnf] = n;
-                    recursionPaths(currentRequest, currentVnf+1, vnfSeqs);
+                h = Double.POSITIVE_INFINITY;
+                for (int c = 0; c < cpuLocations.length; c++) {
+                    h = Math.min(h, pathHops[ingressId[i]][c] + remainingHops[p][c]);
                 }
             }
+            minHopsFrom[i] = minHopsFrom[i+1] + h;
+            vnfDelay[i] = Arrays.stream(r.vnfSequence).mapToDouble(v -> v.delay).sum();
         }
-    }
 
-    public void evalSolution(Node[][] vnfSeqs) {
-        solved++;
-        double percent = solved / all * 100.0;
-        if (percent - lastPercent >= 0.01) {
-            System.out.println(String.format("[%s] Tested %.2f%% of solutions.",
-                    LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")),
-                    percent));
-            lastPercent = percent;
+        // Instances that the overall demand per VNF type needs at least:
+        positionType = new int[numPositions];
+        double[] totalDemand = new double[requestedTypes.length];
+        for (p = 0; p < numPositions; p++) {
+            positionType[p] = requestTypes[positionRequest[p]][positionVnf[p]];
+            totalDemand[positionType[p]] += inst.reqs[positionRequest[p]].bandwidthDemand;
+        }
+        globalInstances = new int[requestedTypes.length];
+        for (int v = 0; v < requestedTypes.length; v++) {
+            globalInstances[v] = minInstances(totalDemand[v], typeCapacity[v]);
         }
 
-        for (Link l : inst.ng.getLinks()) {
-            usedBandwidths.put(l, 0.0);
+        // Number of complete placements below a node of each level:
+        subtreeSize = new double[numPositions];
+        for (p = numPositions - 1; p >= 0; p--) {
+            subtreeSize[p] = (p == numPositions - 1) ? 1.0 : subtreeSize[p+1] * cpuLocations.length;
         }
+    }
 
-        for (int v = 0; v < requestedTypes.length; v++) {
-            for (int n = 0; n < cpuLocations.length; n++) {
-                usedCapacities[v][n].clear();
+    /**
+     * Groups requests with equal ingress, egress, bandwidth, delay and VNF chain.
+     * Swapping the placements of two such requests does not change any link load, CPU demand,
+     * delay or hop count, so only placements where each request's chain is placed lexicographically
+     * no smaller than that of the previous request of its class need to be enumerated.
+     * For a class of n requests with M = |cpuLocations|^chainLength placements each,
+     * these are the (n + M - 1 choose n) multisets instead of M^n sequences.
+     */
+    private void prepareSymmetry() {
+        symmetricPrev = new int[inst.reqs.length];
+        HashMap<List<Object>, Integer> lastOfClass = new HashMap<>();
+        HashMap<List<Object>, Integer> classSize = new HashMap<>();
+        for (int i = 0; i < inst.reqs.length; i++) {
+            TrafficRequest r = inst.reqs[i];
+            List<Object> key = Arrays.asList(r.ingress, r.egress, r.bandwidthDemand, r.expectedDelay, Arrays.asList(r.vnfSequence));
+            Integer prev = lastOfClass.put(key, i);
+            symmetricPrev[i] = (prev == null) ? -1 : prev;
+            classSize.merge(key, 1, Integer::sum);
+        }
+        numClasses = classSize.size();
+
+        symmetryFactor = 1.0;
+        for (Map.Entry<List<Object>, Integer> e : classSize.entrySet()) {
+            int n = e.getValue();
+            double m = Math.pow(cpuLocations.length, ((List<?>) e.getKey().get(4)).size());
+            // M^n / (n + M - 1 choose n):
+            for (int k = 1; k <= n; k++) {
+                symmetryFactor *= m * k / (m - 1 + k);
             }
         }
+    }
 
-        double totalNumberOfHops = 0.0;
+    /**
+     * Lower bound for the number of instances needed to serve the given demand.
+     * (Rounded conservatively, so floating point noise never overestimates.)
+     */
+    private static int minInstances(double demand, double capacity) {
+        if (demand <= 0.0) return 0;
+        return Math.max(1, (int) Math.ceil(demand / capacity - BOUND_EPSILON));
+    }
 
-        for (int i = 0; i < inst.reqs.length; i++) {
-            TrafficRequest r = inst.reqs[i];
-            Node[] seq = vnfSeqs[i];
+    /**
+     * Sets the number of threads used by {@link #solve()}.
+     * With more than one thread, the placement space is split into subspaces by fixing the
+     * placements of the first few VNFs, which are then enumerated as fork/join tasks.
+     * The resulting frontier is identical to the sequential one.
+     *
+     * @param parallelism Number of worker threads (1 = sequential enumeration).
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism = " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
 
-            // Check delay
-            double d = getDelayForRequest(r, seq);
-            if (d > r.expectedDelay) return;
+    /**
+     * Enables or disables branch-and-bound (enabled by default).
+     * When enabled, delay, link bandwidth and node CPU are checked as soon as a VNF is placed,
+     * and subtrees whose optimistic (cpu, hops) estimate is already dominated by the current frontier are cut.
+     * The resulting frontier is identical to the exhaustive enumeration.
+     *
+     * @param pruning Whether infeasible or dominated subtrees are skipped.
+     */
+    public void setPruning(boolean pruning) {
+        this.pruning = pruning;
+    }
 
-            double h = getHopsForRequest(r, seq);
-            totalNumberOfHops += h;
+    /**
+     * Enables or disables the Gray code enumeration (disabled by default).
+     * When enabled, all placements are visited in reflected mixed-radix Gray code order, so that
+     * consecutive placements differ in a single VNF. Each placement is then evaluated by undoing and
+     * re-applying only the two path segments and the two (VNF, node) demands of that VNF,
+     * instead of evaluating every request from scratch.
+     * This is an exhaustive enumeration, so branch-and-bound is not used in this mode.
+     * The frontier has the same objective vectors as the lexicographic enumeration, but among
+     * placements with equal objectives another one may be kept.
+     *
+     * @param grayCode Whether placements are enumerated in Gray code order with delta evaluation.
+     */
+    public void setGrayCode(boolean grayCode) {
+        this.grayCode = grayCode;
+    }
 
-            if (!addBandwidthToLinks(r, seq)) return;
-            addCapacityToNodes(r, seq);
+    /**
+     * Enables or disables the symmetry reduction (disabled by default).
+     * When enabled, requests with equal ingress, egress, bandwidth, delay and VNF chain are treated as
+     * interchangeable, and only one placement out of all permutations among them is enumerated.
+     * The frontier is identical to the full enumeration, since the lexicographically first placement
+     * of each permutation class is the one that is kept.
+     * Not supported by the Gray code enumeration.
+     *
+     * @param symmetry Whether permutations of interchangeable requests are skipped.
+     */
+    public void setSymmetryReduction(boolean symmetry) {
+        this.symmetry = symmetry;
+    }
+
+    /**
+     * Enables or disables delay-constrained routing (disabled by default).
+     * By default, each segment of a chain (from the ingress to the first VNF, between two VNFs, and from the
+     * last VNF to the egress) is routed on the BFS path. When enabled, the segments of a chain are routed
+     * together, with the fewest hops in total such that the delay of the whole chain meets the request's bound
+     * (see {@link ChainRouter}): each segment can take any path of the hop-delay frontier between its nodes
+     * ({@link FlowUtils#hopDelayFrontier(CsrGraph, int, int)}), so a slower segment can leave more of the
+     * bound to the others. Chains whose BFS paths are too slow can then still be placed, at the cost of more hops.
+     * The pruning uses the smallest delays and hops of any path as bounds, and the link loads are checked once
+     * the chain of a request is complete. Not supported by the Gray code enumeration.
+     *
+     * @param delayConstrained Whether chains are routed on the fewest hops that meet their delay bounds.
+     */
+    public void setDelayConstrainedRouting(boolean delayConstrained) {
+        if (delayConstrained != this.delayConstrained) {
+            this.delayConstrained = delayConstrained;
+            prepareTables();
+            prepareBounds();
         }
+    }
 
-        for (int v = 0; v < requestedTypes.length; v++) {
-            VNF vnf = requestedTypes[v];
-            for (int n = 0; n < cpuLocations.length; n++) {
-                ArrayList<Double> requiredCap = usedCapacities[v][n];
-                double sumCap = 0.0;
-                for (Double d : requiredCap) sumCap += d;
+    /**
+     * Enables checkpoints (disabled by default).
+     * The placement space is then split into subspaces by fixing the first few positions, and
+     * {@link #solve()} saves which subspaces are completed, together with the solutions found in them,
+     * whenever a subspace completes and at least {@code interval} placements were enumerated (or skipped)
+     * since the last checkpoint. If the file already exists, {@link #solve()} resumes from it.
+     * The file is kept after the run completes.
+     *
+     * @param file     Checkpoint file, or {@code null} to disable checkpoints.
+     * @param interval Number of placements between two checkpoints.
+     */
+    public void setCheckpoint(Path file, long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("interval = " + interval);
+        }
+        this.checkpointFile = file;
+        this.checkpointInterval = interval;
+    }
 
-                if (!requiredCap.isEmpty()) {
-                    if (sumCap <= vnf.processingCapacity) {
-                        requiredInstances[v][n] = 1;
-                    }
-                    else {
-                        requiredInstances[v][n] = solveBinPacking(requiredCap, vnf.processingCapacity);
-                    }
-                }
-                else {
-                    requiredInstances[v][n] = 0;
-                }
-            }
+    /**
+     * Restricts {@link #solve()} to one of {@code count} shards of the placement space, so that
+     * a single enumeration can be spread over several processes or hosts.
+     * The space is split into subspaces by fixing the first few positions (which only depends on
+     * the instance and {@code count}), and shard {@code index} takes the contiguous index range
+     * [index * n / count, (index + 1) * n / count) of the n subspaces.
+     * <p>
+     * A sharded run needs a checkpoint file ({@link #setCheckpoint(Path, long)}), which holds its
+     * partial frontier in the end. {@link #mergeShards(List)} combines the files of all shards.
+     *
+     * @param index Index of this shard (0 to count-1).
+     * @param count Number of shards (at most the number of placements of the first positions, so that no shard is empty).
+     */
+    public void setShard(int index, int count) {
+        if (count < 1 || count > Math.pow(cpuLocations.length, positionRequest.length)) {
+            throw new IllegalArgumentException("count = " + count);
+        }
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("index = " + index);
         }
+        this.shardIndex = index;
+        this.shardCount = count;
+    }
 
-        double totalCpuRequired = 0.0;
-        for (int n = 0; n < cpuLocations.length; n++) {
-            int reqCpus = 0;
-            for (int v = 0; v < requestedTypes.length; v++) {
-                reqCpus += (int) requestedTypes[v].cpuRequired * requiredInstances[v][n];
+    /**
+     * Combines the partial frontiers of sharded runs (see {@link #setShard(int, int)}).
+     * Subspaces are merged in index order, so the result is the same frontier as an unsharded run.
+     *
+     * @param files Checkpoint files of all shards.
+     * @return Frontier of the whole placement space.
+     * @throws IllegalStateException If a file belongs to another instance or shard count, or subspaces are missing.
+     */
+    public ParetoFrontier<GridGraphSolution> mergeShards(List<Path> files) throws IOException {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("files = " + files);
+        }
+
+        Checkpoint merged = null;
+        for (Path file : files) {
+            Checkpoint cp = Checkpoint.load(file, cpuLocations, getChainLengths());
+            if (cp.fingerprint != getFingerprint()) {
+                throw new IllegalStateException(file + " belongs to another instance");
+            }
+            if (merged == null) {
+                merged = cp;
             }
-            if (reqCpus > cpuLocations[n].cpuCapacity) return;
+            else {
+                merged.merge(cp);
+            }
+        }
 
-            totalCpuRequired += reqCpus;
+        int missing = merged.subspaces - merged.getCompletedCount(0, merged.subspaces);
+        if (missing > 0) {
+            throw new IllegalStateException(missing + " of " + merged.subspaces + " subspaces are not completed");
         }
+        return merged.getMerged();
+    }
 
-        pf.updateParetoFrontier(new GridGraphSolution(vnfSeqs, totalCpuRequired, totalNumberOfHops));
+    /**
+     * Sets how often progress, throughput, rejections, frontier size and ETA are reported during {@link #solve()}.
+     * Reports come from a background thread, so the enumeration threads never print.
+     *
+     * @param millis Milliseconds between two reports (0 = no reports, default: 10 s).
+     */
+    public void setReportInterval(long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("millis = " + millis);
+        }
+        this.reportInterval = millis;
     }
 
-    public int solveBinPacking(ArrayList<Double> elements, double binSize) {
-        int pre = firstFitPacking(elements, binSize);
+    /**
+     * Appends each report to the given CSV file, too.
+     *
+     * @param file CSV file, or {@code null} to only print reports.
+     */
+    public void setMetricsCsv(Path file) {
+        this.metricsCsv = file;
+    }
 
-        double sum = 0.0;
-        for (int i = 0; i < elements.size(); i++) sum += elements.get(i);
-        int lowerEstimate = (int) Math.ceil(sum / binSize);
+    /**
+     * Returns the metrics of the current (or last) {@link #solve()} call.
+     * While it runs, they are also available via JMX.
+     *
+     * @return Metrics, or {@code null} before the first call.
+     */
+    public SolverMetrics getMetrics() {
+        return metrics;
+    }
 
-        if (pre == lowerEstimate) return pre;
+    /**
+     * Returns the number of pruned subtrees of the last {@link #solve()} call.
+     *
+     * @return Counters indexed by [cause][position], with causes {@link #PRUNED_DELAY},
+     * {@link #PRUNED_LINK}, {@link #PRUNED_CPU} and {@link #PRUNED_DOMINATED}.
+     */
+    public synchronized long[][] getPruneCounts() {
+        long[][] copy = new long[PRUNE_CAUSES.length][];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = Arrays.copyOf(pruneCounts[i], pruneCounts[i].length);
+        }
+        return copy;
+    }
+
+    public ParetoFrontier<GridGraphSolution> solve() {
+        if (grayCode && symmetry) {
+            throw new IllegalStateException("Gray code enumeration does not support symmetry reduction");
+        }
+        if (grayCode && delayConstrained) {
+            throw new IllegalStateException("Gray code enumeration does not support delay-constrained routing");
+        }
 
-        for (int maxBins = lowerEstimate; maxBins < pre; maxBins++) {
-            bins.clear();
-            bins.ensureCapacity(maxBins);
-            if (attemptBinPacking(elements, binSize, bins, maxBins, 0)) {
-                return maxBins;
+        all = Math.pow(Math.pow(cpuLocations.length, inst.reqs[0].vnfSequence.length), inst.reqs.length);
+        subtreeWeight = 1.0;
+        if (symmetry) {
+            System.out.println(String.format("Symmetry reduction: %d requests in %d classes, %.0f of %.0f placements (factor %.2f).",
+                    inst.reqs.length, numClasses, all / symmetryFactor, all, symmetryFactor));
+            // Progress is counted in canonical placements, pruned subtrees are scaled by the average shrinkage:
+            all /= symmetryFactor;
+            subtreeWeight = 1.0 / symmetryFactor;
+        }
+        pruneCounts = new long[PRUNE_CAUSES.length][positionRequest.length];
+
+        if (shardCount > 1 && checkpointFile == null) {
+            throw new IllegalStateException("Sharding needs a checkpoint file for the partial frontier");
+        }
+
+        metrics = new SolverMetrics(all);
+        metrics.start(reportInterval, metricsCsv);
+        try {
+            if (checkpointFile != null) {
+                solveWithCheckpoints();
+            }
+            else if (parallelism <= 1) {
+                // Start instance recursion:
+                Worker w = new Worker(new int[0]);
+                w.enumerate();
+                w.flush();
+                pf = w.pf;
+            }
+            else {
+                // Fix enough leading positions to keep all threads busy:
+                int depth = subspaceDepth(16L * parallelism);
+                pf = invokeSubspaces(depth, 0, (long) Math.pow(cpuLocations.length, depth));
             }
+            metrics.setFrontierSize(pf.size());
+        }
+        finally {
+            metrics.stop();
+        }
+
+        if (isPruning()) {
+            printPruneReport();
+        }
+
+        return pf;
+    }
+
+    /**
+     * Returns the number of leading positions to fix, so that there are at least {@code minSubspaces} subspaces
+     * (or all positions are fixed).
+     */
+    private int subspaceDepth(long minSubspaces) {
+        int depth = 0;
+        long subspaces = 1;
+        while (depth < positionRequest.length && subspaces < minSubspaces) {
+            subspaces *= cpuLocations.length;
+            depth++;
         }
-        return pre;
+        return depth;
     }
 
-    public boolean attemptBinPacking(ArrayList<Double> elements, double binSize, ArrayList<Double> bins, int maxBins, int index) {
-        if (index >= elements.size()) {
-            return true;
+    private BiObjectiveParetoFrontier<GridGraphSolution> invokeSubspaces(int depth, long from, long to) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        shared = new ConcurrentParetoFrontier<>();
+        try {
+            return pool.invoke(new SubspaceTask(depth, from, to));
         }
-        else {
-            for (int i = 0; i < maxBins; i++) {
-                if (bins.get(i) + elements.get(index) <= binSize) {
-                    double prev = bins.get(i);
-                    bins.set(i, bins.get(i) + elements.get(index));
-                    if (attemptBinPacking(elements, binSize, bins, maxBins, index+1)) return true;
-                    bins.set(i, prev);
-                }
-            }
-            return false;
+        finally {
+            pool.shutdown();
+            shared = null;
         }
     }
 
-    public int firstFitPacking(ArrayList<Double> elements, double binSize) {
-        bins.clear();
-        // Sort bandwidth demands (desc):
-        elements.sort(Comparator.reverseOrder());
+    private int[] getPrefix(long index, int depth) {
+        int[] prefix = new int[depth];
+        for (int p = depth - 1; p >= 0; p--) {
+            prefix[p] = (int) (index % cpuLocations.length);
+            index /= cpuLocations.length;
+        }
+        return prefix;
+    }
 
-        for (Double d : elements) {
-            boolean platzGefunden = false;
-            int aktuellerBin = 0;
-            while (!platzGefunden) {
-                // Current bin does not exist? -> Create new one, add request:
-                if (aktuellerBin == bins.size()) {
-                    bins.add(d);
-                    platzGefunden = true;
+    /**
+     * Enumerates subspace by subspace (of this shard), skipping the ones that a previous run has completed already.
+     * Sequentially, the subspaces share one frontier, and the restored solutions of each completed
+     * subspace are merged in when its turn comes, so the result does not depend on how the previous
+     * run was interrupted.
+     */
+    private void solveWithCheckpoints() {
+        try {
+            // Shards have to agree on the split, so it must not depend on the parallelism of each process:
+            int depth = (shardCount > 1)
+                    ? subspaceDepth(Math.max(CHECKPOINT_SUBSPACES, SHARD_SUBSPACES * shardCount))
+                    : subspaceDepth(Math.max(16L * parallelism, CHECKPOINT_SUBSPACES));
+            if (Files.exists(checkpointFile)) {
+                checkpoint = Checkpoint.load(checkpointFile, cpuLocations, getChainLengths());
+                if (checkpoint.fingerprint != getFingerprint()) {
+                    throw new IllegalStateException("Checkpoint " + checkpointFile + " belongs to another instance");
                 }
-                // Request fits into current bin:
-                else if (bins.get(aktuellerBin) + d <= binSize) {
-                    bins.set(aktuellerBin, bins.get(aktuellerBin) + d);
-                    platzGefunden = true;
+                if (shardCount > 1 && checkpoint.depth != depth) {
+                    throw new IllegalStateException("Checkpoint " + checkpointFile + " belongs to another number of shards");
                 }
-                // Request does not fit, but more bins exist:
-                else {
-                    aktuellerBin++;
+            }
+            else {
+                checkpoint = new Checkpoint(getFingerprint(), depth, (int) Math.pow(cpuLocations.length, depth));
+            }
+
+            if (shardCount > checkpoint.subspaces) {
+                throw new IllegalStateException(shardCount + " shards for " + checkpoint.subspaces + " subspaces");
+            }
+            int from = (int) ((long) shardIndex * checkpoint.subspaces / shardCount);
+            int to = (int) ((long) (shardIndex + 1) * checkpoint.subspaces / shardCount);
+            all *= (double) (to - from) / checkpoint.subspaces;
+            metrics.setTotal(all);
+            int completed = checkpoint.getCompletedCount(from, to);
+            if (completed > 0) {
+                System.out.println(String.format("Resuming from %s: %d of %d subspaces completed.",
+                        checkpointFile, completed, to - from));
+                metrics.addRestored(completed * all / (to - from));
+            }
+            lastCheckpoint = metrics.getDone();
+
+            if (parallelism <= 1) {
+                BiObjectiveParetoFrontier<GridGraphSolution> front = new BiObjectiveParetoFrontier<>();
+                for (int k = from; k < to; k++) {
+                    if (checkpoint.isCompleted(k)) {
+                        for (GridGraphSolution s : checkpoint.getResult(k)) {
+                            front.updateParetoFrontier(s);
+                        }
+                        continue;
+                    }
+
+                    Worker w = new Worker(getPrefix(k, checkpoint.depth), front);
+                    w.enumerate();
+                    w.flush();
+                    completeSubspace(k, front);
                 }
+                pf = front;
             }
+            else {
+                pf = invokeSubspaces(checkpoint.depth, from, to);
+            }
+            checkpoint.save(checkpointFile, cpuLocations);
+        }
+        catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            checkpoint = null;
         }
-
-        return bins.size();
     }
 
-    public void addCapacityToNodes(TrafficRequest r, Node[] vnfSeq) {
-        for (int i = 0; i < vnfSeq.length; i++) {
-            usedCapacities
-                    [vnfToId.get(r.vnfSequence[i])]
-                    [nodeToId.get(vnfSeq[i])]
-                    .add(r.bandwidthDemand);
+    private void completeSubspace(int k, ParetoFrontier<GridGraphSolution> front) throws IOException {
+        checkpoint.complete(k, front);
+
+        // Counted for the metrics anyway, so no extra work on the hot path.
+        // Only one worker writes at a time, and without the solver's lock (which flushing workers take),
+        // so no worker waits for the file; subspaces completed meanwhile go into the next checkpoint.
+        double done = metrics.getDone();
+        if (done - lastCheckpoint >= checkpointInterval && saving.compareAndSet(false, true)) {
+            try {
+                if (done - lastCheckpoint >= checkpointInterval) {
+                    checkpoint.save(checkpointFile, cpuLocations);
+                    lastCheckpoint = done;
+                }
+            }
+            finally {
+                saving.set(false);
+            }
         }
     }
 
-    public boolean addBandwidthToLinks(TrafficRequest r, Node[] vnfSeq) {
-        HashMap<Node, HashMap<Node, Node.Att>> bfs = inst.ng.getBfsBackpointers();
+    private int[] getChainLengths() {
+        return Arrays.stream(inst.reqs).mapToInt(r -> r.vnfSequence.length).toArray();
+    }
 
-        Node last = r.ingress;
-        for (Node n : vnfSeq) {
-            HashMap<Node, Node.Att> prevs = bfs.get(last);
+    /**
+     * Identifies the instance of a checkpoint: CPU locations, requests and the enumeration order,
+     * as well as the topology (node capacities, link capacities and delays), the VNF library and the routing.
+     * Nodes, links and VNFs are summed up, so their order does not matter.
+     */
+    private long getFingerprint() {
+        long h = positionRequest.length;
+        for (Node n : cpuLocations) {
+            h = 31 * h + n.name.hashCode();
+        }
+        for (TrafficRequest r : inst.reqs) {
+            h = 31 * h + r.toCsv().hashCode();
+        }
+        if (delayConstrained) {
+            h = 31 * h + 1;
+        }
 
-            Node current = n;
-            Link l = prevs.get(current).pi;
-            while (l != null) {
-                // Check link's bandwidth
-                double bw = usedBandwidths.get(l) + r.bandwidthDemand;
-                if (bw > l.bandwidth) {
-                    System.out.println("Link (" + l.node1.name + " - " + l.node2.name + ") crowded.");
-                    return false;
-                }
+        long nodes = 0;
+        for (Node n : inst.ng.getNodes().values()) {
+            nodes += 31L * n.name.hashCode() + Arrays.hashCode(new double[]{n.cpuCapacity, n.ramCapacity, n.hddCapacity});
+        }
+        long links = 0;
+        for (Link l : inst.ng.getLinks()) {
+            links += 31L * (31L * l.node1.name.hashCode() + l.node2.name.hashCode()) + Arrays.hashCode(new double[]{l.bandwidth, l.delay});
+        }
+        long vnfs = 0;
+        for (VNF v : inst.vnfLib.getAllVnfs()) {
+            vnfs += 31L * v.name.hashCode() + Arrays.hashCode(new double[]{v.cpuRequired, v.ramRequired, v.hddRequired,
+                    v.delay, v.processingCapacity, v.maxInstances});
+        }
+        return ((31 * h + nodes) * 31 + links) * 31 + vnfs;
+    }
+
+    private boolean isPruning() {
+        // Requests without VNFs are not covered by any position, so they need the full evaluation.
+        return pruning && !grayCode && Arrays.stream(inst.reqs).allMatch(r -> r.vnfSequence.length > 0);
+    }
 
-                usedBandwidths.put(l, bw);
-                current = l.getOther(current);
-                l = prevs.get(current).pi;
+    private void printPruneReport() {
+        System.out.println("Pruned subtrees per level [" + String.join(", ", PRUNE_CAUSES) + "]:");
+        double skipped = 0.0;
+        for (int p = 0; p < positionRequest.length; p++) {
+            long sum = 0;
+            long[] counts = new long[PRUNE_CAUSES.length];
+            for (int i = 0; i < PRUNE_CAUSES.length; i++) {
+                counts[i] = pruneCounts[i][p];
+                sum += counts[i];
             }
+            if (sum > 0) {
+                System.out.println(String.format("  level %d (request %d, VNF %d): %s",
+                        p, positionRequest[p], positionVnf[p], Arrays.toString(counts)));
+                skipped += sum * subtreeSize[p] * subtreeWeight;
+            }
+        }
+        System.out.println(String.format("Skipped %.0f of %.0f placements (%.2f%%).", skipped, all, skipped / all * 100.0));
+    }
 
-            last = n;
+    private Node[][] createVnfSeqs() {
+        // Prepare VNF Sequence Data Structure:
+        Node[][] vnfSeqs = new Node[inst.reqs.length][];
+        for (int i = 0; i < inst.reqs.length; i++) {
+            vnfSeqs[i] = new Node[inst.reqs[i].vnfSequence.length];
         }
-        // Egress:
-        HashMap<Node, Node.Att> prevs = bfs.get(last);
+        return vnfSeqs;
+    }
 
-        Node current = r.egress;
-        Link l = prevs.get(current).pi;
-        while (l != null) {
-            // Check link's bandwidth
-            double bw = usedBandwidths.get(l) + r.bandwidthDemand;
-            if (bw > l.bandwidth) {
-                System.out.println("Link (" + l.node1.name + " - " + l.node2.name + ") crowded.");
-                return false;
+    private synchronized void addPruneCounts(long[][] pruned) {
+        for (int i = 0; i < pruned.length; i++) {
+            for (int p = 0; p < pruned[i].length; p++) {
+                pruneCounts[i][p] += pruned[i][p];
+                pruned[i][p] = 0;
             }
-
-            usedBandwidths.put(l, bw);
-            current = l.getOther(current);
-            l = prevs.get(current).pi;
         }
-
-        return true;
     }
 
+    /**
+     * @return Delay of the request on the BFS paths (also with delay-constrained routing).
+     */
     public double getDelayForRequest(TrafficRequest r, Node[] vnfSeq) {
-        HashMap<Node, HashMap<Node, Node.Att>> bfs = inst.ng.getBfsBackpointers();
-
         double d = 0.0;
         Node last = r.ingress;
         for (Node n : vnfSeq) {
-            d += bfs.get(last).get(n).delay;
+            d += bfs.getDelay(graph.getId(last), graph.getId(n));
             last = n;
         }
-        d += bfs.get(last).get(r.egress).delay;
+        d += bfs.getDelay(graph.getId(last), graph.getId(r.egress));
 
         for (VNF v : r.vnfSequence) {
             d += v.delay;
@@ -306,29 +827,914 @@ public class BruteForceSolver {
         return d;
     }
 
+    /**
+     * @return Hops of the request on the BFS paths (also with delay-constrained routing).
+     */
     public double getHopsForRequest(TrafficRequest r, Node[] vnfSeq) {
-        HashMap<Node, HashMap<Node, Node.Att>> bfs = inst.ng.getBfsBackpointers();
-
         double h = 0.0;
         Node last = r.ingress;
         for (Node n : vnfSeq) {
-            h += bfs.get(last).get(n).h;
+            h += bfs.getHops(graph.getId(last), graph.getId(n));
             last = n;
         }
-        h += bfs.get(last).get(r.egress).h;
+        h += bfs.getHops(graph.getId(last), graph.getId(r.egress));
+
+        return h;
+    }
+
+    /**
+     * Same as {@link #getDelayForRequest(TrafficRequest, Node[])}, on CPU location ids.
+     * (Sums up in the same order, so the results are bit-identical.)
+     */
+    private double getDelayForRequest(int i, int[] seq) {
+        double d = 0.0;
+        int last = ingressId[i];
+        for (int c : seq) {
+            d += pathDelay[last][c];
+            last = c;
+        }
+        d += pathDelay[last][egressId[i]];
+
+        for (double vd : requestVnfDelays[i]) {
+            d += vd;
+        }
+
+        return d;
+    }
+
+    /**
+     * Same as {@link #getHopsForRequest(TrafficRequest, Node[])}, on CPU location ids.
+     */
+    private double getHopsForRequest(int i, int[] seq) {
+        double h = 0.0;
+        int last = ingressId[i];
+        for (int c : seq) {
+            h += pathHops[last][c];
+            last = c;
+        }
+        h += pathHops[last][egressId[i]];
 
         return h;
     }
 
+    /**
+     * Enumerates all placements whose first {@code depth} positions encode a prefix index in [from, to).
+     * Subspaces are split in halves until a single prefix remains, which is then solved by its own
+     * {@link Worker}. Frontiers are merged left to right, so the earliest solution wins among equal
+     * objective vectors, exactly as in the sequential enumeration.
+     * Meanwhile, workers publish their solutions to {@link #shared}, so each one can skip subtrees
+     * that another worker has already beaten.
+     */
+    private class SubspaceTask extends RecursiveTask<BiObjectiveParetoFrontier<GridGraphSolution>> {
+        private static final long serialVersionUID = 1L;
+
+        private final int depth;
+        private final long from;
+        private final long to;
+
+        SubspaceTask(int depth, long from, long to) {
+            this.depth = depth;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected BiObjectiveParetoFrontier<GridGraphSolution> compute() {
+            if (to <= from) {
+                return new BiObjectiveParetoFrontier<>();
+            }
+            if (to - from == 1) {
+                if (checkpoint != null && checkpoint.isCompleted((int) from)) {
+                    return new BiObjectiveParetoFrontier<>(checkpoint.getResult((int) from));
+                }
+
+                Worker w = new Worker(getPrefix(from, depth));
+                w.enumerate();
+                w.flush();
+                if (checkpoint != null) {
+                    try {
+                        completeSubspace((int) from, w.pf);
+                    }
+                    catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return w.pf;
+            }
+
+            long mid = from + (to - from) / 2;
+            SubspaceTask left = new SubspaceTask(depth, from, mid);
+            SubspaceTask right = new SubspaceTask(depth, mid, to);
+            left.fork();
+            BiObjectiveParetoFrontier<GridGraphSolution> rightPf = right.compute();
+            BiObjectiveParetoFrontier<GridGraphSolution> leftPf = left.join();
+
+            // Left first, so ties are resolved as in sequential enumeration:
+            return BiObjectiveParetoFrontier.merge(Arrays.asList(leftPf, rightPf));
+        }
+    }
+
+    /**
+     * Scratch state of a single enumeration thread.
+     * Each worker owns its capacity and bandwidth bookkeeping and collects its own Pareto frontier.
+     * The placements of the first {@code prefix.length} positions are fixed.
+     * <p>
+     * Placements are kept as CPU location ids in {@code seq[request][vnf]}. Evaluating a placement
+     * only works on primitive arrays and does not allocate, unless the placement enters the frontier.
+     */
+    private class Worker {
+        private final BiObjectiveParetoFrontier<GridGraphSolution> pf;
+        private final int[] prefix;
+        private final int[][] seq;
+        private final Node[][] vnfSeqs;
+        private final long[][] pruned;
+        // Counts since the last flush: done (evaluated or skipped) and evaluated placements, rejections per cause:
+        private double unreported;
+        private long evaluated;
+        private final double[] rejected;
+
+        // Link loads, with the links touched by the current evaluation:
+        private final double[] linkLoad;
+        private int[] touchedLinks;
+        private int touchedSize;
+
+        // Demands per (VNF type, CPU location) in insertion order, and their instance counts:
+        private final double[][] demands;
+        private final int[][] demandCount;
+        private final int[][] requiredInstances;
+        private double[] packing;
+        private final BinPacking binPacking;
+        // Delay-constrained routing of the current chain (null, if disabled):
+        private final ChainRouter router;
+        private final int[] chainNodes;
+
+        // Incremental state of the branch-and-bound enumeration:
+        private double requestDelay;
+        private double hopsSum;
+        private final double[][] demandSum;
+        private final int[][] minInstances;
+        private final int[] minInstancesPerType;
+        private final int[] minCpuPerNode;
+        private int[] undoLinks;
+        private double[] undoLoads;
+        private int undoSize;
+
+        // Incremental state of the Gray code enumeration, indexed by [request][link] and [type][cpu location][request]:
+        private int[][] linkUse;
+        private boolean[] overloaded;
+        private int overloadedLinks;
+        private boolean exactLoads;
+        private boolean[] delayViolated;
+        private int delayViolations;
+        private double[] requestHops;
+        private double grayHops;
+        private int[][][] placed;
+        private boolean[] dirtyCell;
+        private int[] dirtyCells;
+        private int dirtySize;
+        private int[] nodeCpu;
+        private int overloadedNodes;
+        private double grayCpu;
+
+        Worker(int[] prefix) {
+            this(prefix, new BiObjectiveParetoFrontier<>());
+        }
+
+        Worker(int[] prefix, BiObjectiveParetoFrontier<GridGraphSolution> pf) {
+            this.prefix = prefix;
+            this.pf = pf;
+
+            // Prepare data structures once per worker, so less work for the GC:
+            seq = new int[inst.reqs.length][];
+            for (int i = 0; i < inst.reqs.length; i++) {
+                seq[i] = new int[inst.reqs[i].vnfSequence.length];
+            }
+            vnfSeqs = createVnfSeqs();
+            pruned = new long[PRUNE_CAUSES.length][positionRequest.length];
+            rejected = new double[PRUNE_CAUSES.length];
+
+            linkLoad = new double[linkCapacity.length];
+            touchedLinks = new int[64];
+
+            demands = new double[requestedTypes.length * cpuLocations.length][4];
+            demandCount = new int[requestedTypes.length][cpuLocations.length];
+            requiredInstances = new int[requestedTypes.length][cpuLocations.length];
+            packing = new double[4];
+            binPacking = new BinPacking(BIN_PACKING_CACHE_SIZE);
+            router = delayConstrained ? new ChainRouter(frontierHops, frontierDelay) : null;
+            chainNodes = new int[Arrays.stream(seq).mapToInt(s -> s.length).max().orElse(0) + 2];
+
+            demandSum = new double[requestedTypes.length][cpuLocations.length];
+            minInstances = new int[requestedTypes.length][cpuLocations.length];
+            minInstancesPerType = new int[requestedTypes.length];
+            minCpuPerNode = new int[cpuLocations.length];
+            undoLinks = new int[64];
+            undoLoads = new double[64];
+        }
+
+        void flush() {
+            if (isPruning()) {
+                addPruneCounts(pruned);
+            }
+            metrics.add(evaluated, unreported, rejected, pf.size());
+            unreported = 0.0;
+            evaluated = 0;
+        }
+
+        void enumerate() {
+            if (grayCode) {
+                grayCode();
+            }
+            else if (isPruning()) {
+                branchAndBound(0);
+            }
+            else {
+                for (int p = 0; p < prefix.length; p++) {
+                    // Subspaces of non-canonical prefixes are empty:
+                    if (prefix[p] < firstCpu(p)) return;
+                    seq[positionRequest[p]][positionVnf[p]] = prefix[p];
+                }
+                recursionPaths(prefix.length);
+            }
+        }
+
+        void recursionPaths(int p) {
+            if (p >= positionRequest.length) {
+                // Evaluate current solution:
+                evalSolution();
+            }
+            else {
+                int[] s = seq[positionRequest[p]];
+                int j = positionVnf[p];
+                for (int c = firstCpu(p); c < cpuLocations.length; c++) {
+                    s[j] = c;
+                    recursionPaths(p+1);
+                }
+            }
+        }
+
+        /**
+         * Walks all placements of the free positions in reflected mixed-radix Gray code order
+         * (Knuth, TAOCP 7.2.1.1, Algorithm H), so consecutive placements differ in a single VNF.
+         * The last position changes fastest, as in {@link #recursionPaths}.
+         */
+        void grayCode() {
+            initGrayState();
+
+            // Digit k is position (numPositions - 1 - k), with focus pointers f and directions o:
+            int n = (cpuLocations.length > 1) ? positionRequest.length - prefix.length : 0;
+            int[] a = new int[n];
+            int[] f = new int[n + 1];
+            int[] o = new int[n];
+            for (int k = 0; k <= n; k++) f[k] = k;
+            Arrays.fill(o, 1);
+
+            while (true) {
+                visitGray();
+
+                int k = f[0];
+                f[0] = 0;
+                if (k == n) break;
+
+                a[k] += o[k];
+                move(positionRequest.length - 1 - k, a[k]);
+                if (a[k] == 0 || a[k] == cpuLocations.length - 1) {
+                    o[k] = -o[k];
+                    f[k] = f[k+1];
+                    f[k+1] = k + 1;
+                }
+            }
+        }
+
+        /**
+         * Places the free positions on the first CPU location and evaluates this placement from scratch.
+         */
+        private void initGrayState() {
+            int numReqs = inst.reqs.length;
+            linkUse = new int[numReqs][linkCapacity.length];
+            overloaded = new boolean[linkCapacity.length];
+            delayViolated = new boolean[numReqs];
+            requestHops = new double[numReqs];
+            placed = new int[requestedTypes.length][cpuLocations.length][numReqs];
+            dirtyCell = new boolean[requestedTypes.length * cpuLocations.length];
+            dirtyCells = new int[dirtyCell.length];
+            nodeCpu = new int[cpuLocations.length];
+            Arrays.fill(linkLoad, 0.0);
+            // Integral bandwidths sum up exactly in any order:
+            exactLoads = Arrays.stream(inst.reqs).allMatch(r -> r.bandwidthDemand == Math.rint(r.bandwidthDemand) && Math.abs(r.bandwidthDemand) < 1e12);
+
+            for (int p = 0; p < positionRequest.length; p++) {
+                seq[positionRequest[p]][positionVnf[p]] = (p < prefix.length) ? prefix[p] : 0;
+            }
+
+            for (int i = 0; i < numReqs; i++) {
+                int last = ingressId[i];
+                for (int c : seq[i]) {
+                    addSegment(i, last, c, 1);
+                    last = c;
+                }
+                addSegment(i, last, egressId[i], 1);
+
+                for (int j = 0; j < seq[i].length; j++) {
+                    placed[requestTypes[i][j]][seq[i][j]][i]++;
+                }
+                updateRequest(i);
+            }
+
+            for (int v = 0; v < requestedTypes.length; v++) {
+                Arrays.fill(requiredInstances[v], 0);
+                for (int c = 0; c < cpuLocations.length; c++) {
+                    markDirty(v, c);
+                }
+            }
+        }
+
+        private void visitGray() {
+            evaluated++;
+            if (++unreported >= 4096) {
+                flush();
+            }
+            if (delayViolations > 0) {
+                rejected[PRUNED_DELAY]++;
+                return;
+            }
+            if (overloadedLinks > 0) {
+                rejected[PRUNED_LINK]++;
+                return;
+            }
+
+            // Bin packing is the expensive part, so instances are only recounted for feasible paths:
+            while (dirtySize > 0) {
+                int cell = dirtyCells[--dirtySize];
+                dirtyCell[cell] = false;
+                updateCell(cell / cpuLocations.length, cell % cpuLocations.length);
+            }
+            if (overloadedNodes > 0) {
+                rejected[PRUNED_CPU]++;
+                return;
+            }
+
+            addToFrontier(grayCpu, grayHops);
+        }
+
+        /**
+         * Moves the VNF at position {@code p} to CPU location {@code c}.
+         * Only the path segments to its neighbours in the chain and the demands of the old
+         * and the new location are updated.
+         */
+        private void move(int p, int c) {
+            int i = positionRequest[p];
+            int j = positionVnf[p];
+            int v = positionType[p];
+            int[] s = seq[i];
+            int old = s[j];
+            int prev = (j == 0) ? ingressId[i] : s[j-1];
+            int next = (j == s.length - 1) ? egressId[i] : s[j+1];
+
+            addSegment(i, prev, old, -1);
+            addSegment(i, old, next, -1);
+            addSegment(i, prev, c, 1);
+            addSegment(i, c, next, 1);
+            s[j] = c;
+            updateRequest(i);
+
+            placed[v][old][i]--;
+            placed[v][c][i]++;
+            markDirty(v, old);
+            markDirty(v, c);
+        }
+
+        private void markDirty(int v, int c) {
+            int cell = v * cpuLocations.length + c;
+            if (!dirtyCell[cell]) {
+                dirtyCell[cell] = true;
+                dirtyCells[dirtySize++] = cell;
+            }
+        }
+
+        /**
+         * Adds ({@code sign} = 1) or removes ({@code sign} = -1) the bandwidth of request {@code i}
+         * on the path between the dense nodes {@code a} and {@code b}.
+         */
+        private void addSegment(int i, int a, int b, int sign) {
+            double bw = sign * inst.reqs[i].bandwidthDemand;
+            int[] use = linkUse[i];
+            for (int l : pathLinks[a][b]) {
+                use[l] += sign;
+                linkLoad[l] += bw;
+
+                boolean over = isOverloaded(l);
+                if (over != overloaded[l]) {
+                    overloaded[l] = over;
+                    overloadedLinks += over ? 1 : -1;
+                }
+            }
+        }
+
+        private boolean isOverloaded(int l) {
+            double slack = linkCapacity[l] - linkLoad[l];
+            if (exactLoads || Math.abs(slack) > BOUND_EPSILON * Math.max(1.0, linkCapacity[l])) return slack < 0.0;
+
+            // Too close to tell after many updates, so sum up in the same order as evalSolution:
+            double load = 0.0;
+            for (int i = 0; i < linkUse.length; i++) {
+                for (int k = 0; k < linkUse[i][l]; k++) {
+                    load += inst.reqs[i].bandwidthDemand;
+                }
+            }
+            linkLoad[l] = load;
+            return load > linkCapacity[l];
+        }
+
+        private void updateRequest(int i) {
+            boolean violated = getDelayForRequest(i, seq[i]) > inst.reqs[i].expectedDelay;
+            if (violated != delayViolated[i]) {
+                delayViolated[i] = violated;
+                delayViolations += violated ? 1 : -1;
+            }
+
+            // Hop counts are integers, so the running sum is exact. (Unreachable nodes violate the delay anyway.)
+            double h = getHopsForRequest(i, seq[i]);
+            if (Double.isInfinite(h)) h = 0.0;
+            grayHops += h - requestHops[i];
+            requestHops[i] = h;
+        }
+
+        /**
+         * Recounts the instances of VNF type {@code v} on CPU location {@code c}.
+         */
+        private void updateCell(int v, int c) {
+            // Collect the demands in request order, as evalSolution does:
+            int count = 0;
+            double[] list = demands[v * cpuLocations.length + c];
+            int[] perRequest = placed[v][c];
+            for (int i = 0; i < perRequest.length; i++) {
+                for (int k = 0; k < perRequest[i]; k++) {
+                    if (count == list.length) {
+                        list = Arrays.copyOf(list, count * 2);
+                        demands[v * cpuLocations.length + c] = list;
+                    }
+                    list[count++] = inst.reqs[i].bandwidthDemand;
+                }
+            }
+
+            int instances = countInstances(list, count, typeCapacity[v]);
+            int diff = cpuPerInstance[v] * (instances - requiredInstances[v][c]);
+            requiredInstances[v][c] = instances;
+
+            boolean before = nodeCpu[c] > cpuLocations[c].cpuCapacity;
+            nodeCpu[c] += diff;
+            grayCpu += diff;
+            boolean after = nodeCpu[c] > cpuLocations[c].cpuCapacity;
+            if (before != after) {
+                overloadedNodes += after ? 1 : -1;
+            }
+        }
+
+        /**
+         * Returns the first CPU location to try for position {@code p}.
+         * With symmetry reduction, the chain of a request must not be placed lexicographically
+         * smaller than that of the previous request of its class.
+         */
+        private int firstCpu(int p) {
+            int i = positionRequest[p];
+            if (!symmetry || symmetricPrev[i] < 0) return 0;
+
+            int[] s = seq[i];
+            int[] t = seq[symmetricPrev[i]];
+            int j = positionVnf[p];
+            for (int k = 0; k < j; k++) {
+                // Already larger, so anything goes:
+                if (s[k] != t[k]) return 0;
+            }
+            return t[j];
+        }
+
+        /**
+         * Places the VNF at position {@code p} on every CPU location in turn and descends into
+         * the subtree only if the partial placement is feasible and not dominated yet.
+         * Bandwidths and capacities are added in the same order as {@link #evalSolution},
+         * so the leaves see bit-identical sums.
+         */
+        void branchAndBound(int p) {
+            if (p >= positionRequest.length) {
+                evaluated++;
+                if (++unreported >= 4096) {
+                    flush();
+                }
+                finishSolution(hopsSum);
+                return;
+            }
+
+            int i = positionRequest[p];
+            int j = positionVnf[p];
+            int v = positionType[p];
+            if (j == 0) {
+                requestDelay = vnfDelay[i];
+            }
+
+            double savedDelay = requestDelay;
+            double savedHops = hopsSum;
+            int from = (p < prefix.length) ? Math.max(prefix[p], firstCpu(p)) : firstCpu(p);
+            int to = (p < prefix.length) ? prefix[p] + 1 : cpuLocations.length;
+            for (int c = from; c < to; c++) {
+                seq[i][j] = c;
+                int mark = undoSize;
+                double savedDemand = demandSum[v][c];
+                int savedInstances = minInstances[v][c];
+
+                int cause = place(p, c);
+                if (cause < 0) {
+                    branchAndBound(p+1);
+                }
+                else {
+                    countPruned(cause, p);
+                }
+
+                if (cause < 0 || cause >= PRUNED_CPU) {
+                    removeDemand(v, c, savedDemand, savedInstances);
+                }
+                while (undoSize > mark) {
+                    undoSize--;
+                    linkLoad[undoLinks[undoSize]] = undoLoads[undoSize];
+                }
+                requestDelay = savedDelay;
+                hopsSum = savedHops;
+            }
+        }
+
+        /**
+         * Adds the VNF at position {@code p} on CPU location {@code c} to the incremental state.
+         *
+         * @return -1, if the subtree has to be enumerated, or the cause why it can be skipped.
+         */
+        private int place(int p, int c) {
+            int i = positionRequest[p];
+            int j = positionVnf[p];
+            TrafficRequest r = inst.reqs[i];
+            boolean last = j == seq[i].length - 1;
+            int prev = (j == 0) ? ingressId[i] : seq[i][j-1];
+
+            requestDelay += pathDelay[prev][c];
+            hopsSum += pathHops[prev][c];
+
+            // Delay of the request so far, plus the best case for its remaining VNFs:
+            if (last && router != null) {
+                if (!routeChain(i, seq[i])) return PRUNED_DELAY;
+                // Replaces the fewest hops of the segments so far by the routed ones:
+                hopsSum += router.getHops() - (getHopsForRequest(i, seq[i]) - pathHops[c][egressId[i]]);
+            }
+            else if (last) {
+                if (getDelayForRequest(i, seq[i]) > r.expectedDelay) return PRUNED_DELAY;
+                hopsSum += pathHops[c][egressId[i]];
+            }
+            else if (requestDelay + remainingDelay[p][c] > r.expectedDelay + BOUND_EPSILON) {
+                return PRUNED_DELAY;
+            }
+
+            // Cumulative link load (of routed chains, once they are complete):
+            if (router != null) {
+                if (last) {
+                    int a = ingressId[i];
+                    for (int k = 0; k <= j; k++) {
+                        int b = (k < j) ? seq[i][k] : c;
+                        if (!addBandwidth(frontierLinks[a][b][router.getPath(k)], r.bandwidthDemand)) return PRUNED_LINK;
+                        a = b;
+                    }
+                    if (!addBandwidth(frontierLinks[c][egressId[i]][router.getPath(j + 1)], r.bandwidthDemand)) return PRUNED_LINK;
+                }
+            }
+            else {
+                if (!addBandwidth(pathLinks[prev][c], r.bandwidthDemand)) return PRUNED_LINK;
+                if (last && !addBandwidth(pathLinks[c][egressId[i]], r.bandwidthDemand)) return PRUNED_LINK;
+            }
+
+            // Running CPU lower bound of the node:
+            int v = positionType[p];
+            addDemand(v, c, r.bandwidthDemand);
+            demandSum[v][c] += r.bandwidthDemand;
+            updateMinInstances(v, c, minInstances(demandSum[v][c], typeCapacity[v]));
+            if (minCpuPerNode[c] > cpuLocations[c].cpuCapacity) return PRUNED_CPU;
+
+            // Optimistic (cpu, hops) estimate of all placements below:
+            double cpuBound = 0.0;
+            for (int t = 0; t < requestedTypes.length; t++) {
+                cpuBound += cpuPerInstance[t] * Math.max(minInstancesPerType[t], globalInstances[t]);
+            }
+            double hopsBound = hopsSum + (last ? 0.0 : remainingHops[p][c]) + minHopsFrom[i + 1];
+            if (isDominated(cpuBound, hopsBound)) return PRUNED_DOMINATED;
+
+            return -1;
+        }
+
+        private void countPruned(int cause, int p) {
+            if (p < prefix.length - 1) {
+                // Prefix levels are replayed by every subspace below them, so only the first one counts:
+                for (int q = p + 1; q < prefix.length; q++) {
+                    if (prefix[q] != 0) {
+                        unreported += subtreeSize[prefix.length - 1] * subtreeWeight;
+                        rejected[cause] += subtreeSize[prefix.length - 1] * subtreeWeight;
+                        return;
+                    }
+                }
+            }
+            pruned[cause][p]++;
+            unreported += subtreeSize[Math.max(p, prefix.length - 1)] * subtreeWeight;
+            rejected[cause] += subtreeSize[Math.max(p, prefix.length - 1)] * subtreeWeight;
+        }
+
+        private boolean addBandwidth(int[] path, double bandwidth) {
+            for (int l : path) {
+                double before = linkLoad[l];
+                double bw = before + bandwidth;
+                if (bw > linkCapacity[l]) return false;
+
+                if (undoSize == undoLinks.length) {
+                    undoLinks = Arrays.copyOf(undoLinks, undoSize * 2);
+                    undoLoads = Arrays.copyOf(undoLoads, undoSize * 2);
+                }
+                undoLinks[undoSize] = l;
+                undoLoads[undoSize] = before;
+                undoSize++;
+
+                linkLoad[l] = bw;
+            }
+            return true;
+        }
+
+        private void removeDemand(int v, int c, double savedDemand, int savedInstances) {
+            demandCount[v][c]--;
+            demandSum[v][c] = savedDemand;
+            updateMinInstances(v, c, savedInstances);
+        }
+
+        private void updateMinInstances(int v, int c, int instances) {
+            int diff = instances - minInstances[v][c];
+            minInstances[v][c] = instances;
+            minInstancesPerType[v] += diff;
+            minCpuPerNode[c] += diff * cpuPerInstance[v];
+        }
+
+        private void addDemand(int v, int c, double bandwidth) {
+            double[] list = demands[v * cpuLocations.length + c];
+            int count = demandCount[v][c];
+            if (count == list.length) {
+                list = Arrays.copyOf(list, count * 2);
+                demands[v * cpuLocations.length + c] = list;
+            }
+            list[count] = bandwidth;
+            demandCount[v][c] = count + 1;
+        }
+
+        /**
+         * Checks the own frontier, and the solutions of the other workers. Equal points of other
+         * workers do not count, since the earliest subspace has to keep its representative.
+         */
+        private boolean isDominated(double cpu, double hops) {
+            return pf.isDominated(cpu, hops) || (shared != null && shared.isStrictlyDominated(cpu, hops));
+        }
+
+        void evalSolution() {
+            evaluated++;
+            if (++unreported >= 4096) {
+                flush();
+            }
+
+            for (int k = 0; k < touchedSize; k++) {
+                linkLoad[touchedLinks[k]] = 0.0;
+            }
+            touchedSize = 0;
+
+            for (int v = 0; v < requestedTypes.length; v++) {
+                Arrays.fill(demandCount[v], 0);
+            }
+
+            double totalNumberOfHops = 0.0;
+
+            for (int i = 0; i < inst.reqs.length; i++) {
+                TrafficRequest r = inst.reqs[i];
+                int[] s = seq[i];
+
+                // Check delay
+                double h;
+                if (router != null) {
+                    if (!routeChain(i, s)) {
+                        rejected[PRUNED_DELAY]++;
+                        return;
+                    }
+                    h = router.getHops();
+                }
+                else {
+                    double d = getDelayForRequest(i, s);
+                    if (d > r.expectedDelay) {
+                        rejected[PRUNED_DELAY]++;
+                        return;
+                    }
+                    h = getHopsForRequest(i, s);
+                }
+                totalNumberOfHops += h;
+
+                if (!addBandwidthToLinks(i, s)) {
+                    rejected[PRUNED_LINK]++;
+                    return;
+                }
+                addCapacityToNodes(i, s);
+            }
+
+            finishSolution(totalNumberOfHops);
+        }
+
+        /**
+         * Counts the required instances for the collected demands,
+         * checks the nodes' CPU capacities and updates the frontier.
+         */
+        void finishSolution(double totalNumberOfHops) {
+            for (int v = 0; v < requestedTypes.length; v++) {
+                double capacity = typeCapacity[v];
+                for (int n = 0; n < cpuLocations.length; n++) {
+                    requiredInstances[v][n] = countInstances(demands[v * cpuLocations.length + n], demandCount[v][n], capacity);
+                }
+            }
+
+            double totalCpuRequired = 0.0;
+            for (int n = 0; n < cpuLocations.length; n++) {
+                int reqCpus = 0;
+                for (int v = 0; v < requestedTypes.length; v++) {
+                    reqCpus += cpuPerInstance[v] * requiredInstances[v][n];
+                }
+                if (reqCpus > cpuLocations[n].cpuCapacity) {
+                    rejected[PRUNED_CPU]++;
+                    return;
+                }
+
+                totalCpuRequired += reqCpus;
+            }
+
+            addToFrontier(totalCpuRequired, totalNumberOfHops);
+        }
+
+        /**
+         * Returns the number of instances with the given capacity that the first {@code count} demands need.
+         */
+        int countInstances(double[] requiredCap, int count, double capacity) {
+            if (count == 0) return 0;
+
+            double sumCap = 0.0;
+            for (int k = 0; k < count; k++) sumCap += requiredCap[k];
+            if (sumCap <= capacity) return 1;
+
+            // Packing needs sorted input, but the enumeration still needs the insertion order:
+            if (packing.length < count) packing = new double[requiredCap.length];
+            System.arraycopy(requiredCap, 0, packing, 0, count);
+            BinPacking.sortDescending(packing, count);
+            return binPacking.minBins(packing, count, capacity);
+        }
+
+        /**
+         * Adds the current placement with the given objectives to the frontier.
+         */
+        void addToFrontier(double totalCpuRequired, double totalNumberOfHops) {
+            // Only dominated or equal points are rejected by the frontier, so skip creating them:
+            if (isDominated(totalCpuRequired, totalNumberOfHops)) return;
+
+            for (int i = 0; i < seq.length; i++) {
+                for (int j = 0; j < seq[i].length; j++) {
+                    vnfSeqs[i][j] = cpuLocations[seq[i][j]];
+                }
+            }
+            GridGraphSolution s = new GridGraphSolution(vnfSeqs, totalCpuRequired, totalNumberOfHops);
+            pf.updateParetoFrontier(s);
+            if (shared != null) {
+                shared.updateParetoFrontier(s);
+            }
+        }
+
+        void addCapacityToNodes(int i, int[] s) {
+            double bw = inst.reqs[i].bandwidthDemand;
+            for (int j = 0; j < s.length; j++) {
+                addDemand(requestTypes[i][j], s[j], bw);
+            }
+        }
+
+        boolean addBandwidthToLinks(int i, int[] s) {
+            double bw = inst.reqs[i].bandwidthDemand;
+            int last = ingressId[i];
+            for (int k = 0; k < s.length; k++) {
+                int c = s[k];
+                if (!addBandwidthToLinks(getSegmentLinks(last, c, k), bw)) return false;
+                last = c;
+            }
+            // Egress:
+            return addBandwidthToLinks(getSegmentLinks(last, egressId[i], s.length), bw);
+        }
+
+        /**
+         * @return Links of segment k of the current chain, between the dense nodes a and b.
+         */
+        private int[] getSegmentLinks(int a, int b, int k) {
+            return (router != null) ? frontierLinks[a][b][router.getPath(k)] : pathLinks[a][b];
+        }
+
+        /**
+         * Routes the chain of request i with the fewest hops within its delay bound (see {@link ChainRouter}).
+         */
+        private boolean routeChain(int i, int[] s) {
+            chainNodes[0] = ingressId[i];
+            System.arraycopy(s, 0, chainNodes, 1, s.length);
+            chainNodes[s.length + 1] = egressId[i];
+            return router.route(chainNodes, s.length + 2, requestVnfDelays[i], inst.reqs[i].expectedDelay);
+        }
+
+        private boolean addBandwidthToLinks(int[] path, double bw) {
+            for (int l : path) {
+                // Check link's bandwidth
+                double load = linkLoad[l];
+                if (load == 0.0) {
+                    if (touchedSize == touchedLinks.length) touchedLinks = Arrays.copyOf(touchedLinks, touchedSize * 2);
+                    touchedLinks[touchedSize++] = l;
+                }
+                load += bw;
+                if (load > linkCapacity[l]) return false;
+
+                linkLoad[l] = load;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Without arguments, solves the eval-topo instance (sequentially, without symmetry reduction).
+     * For sharded runs over several processes (on the instance in {@code base}, with vnfLib2):
+     * <pre>
+     *   shard base index count file [threads]   Solves one shard, its partial frontier goes to file.
+     *   merge base file...                      Merges the files of all shards.
+     * </pre>
+     * Options before these arguments:
+     * <pre>
+     *   --threads n      Number of worker threads (0: one per available processor).
+     *   --symmetry       Skips permutations of interchangeable requests.
+     *   --delay-routing  Routes chains with the fewest hops that meet their delay bounds.
+     * </pre>
+     */
     public static void main(String[] args) throws Exception {
         Locale.setDefault(Locale.US);
+        int threads = 1;
+        boolean symmetry = false;
+        boolean delayRouting = false;
+        int opt = 0;
+        for (; opt < args.length && args[opt].startsWith("--"); opt++) {
+            if (args[opt].equals("--threads") && opt + 1 < args.length) {
+                threads = Integer.parseInt(args[++opt]);
+                if (threads == 0) threads = Runtime.getRuntime().availableProcessors();
+            }
+            else if (args[opt].equals("--symmetry")) {
+                symmetry = true;
+            }
+            else if (args[opt].equals("--delay-routing")) {
+                delayRouting = true;
+            }
+            else {
+                printUsage();
+                return;
+            }
+        }
+        args = Arrays.copyOfRange(args, opt, args.length);
+        boolean shard = args.length > 0 && args[0].equals("shard") && (args.length == 5 || args.length == 6);
+        boolean merge = args.length > 0 && args[0].equals("merge") && args.length >= 3;
+        if (args.length > 0 && !shard && !merge) {
+            printUsage();
+            return;
+        }
+
         String base = "/home/alex/w/17/benchmark-vnfcp-generator/java/VNFCP_benchmarking/res/eval-topo/";
+        if (args.length > 0) {
+            base = args[1].endsWith("/") ? args[1] : args[1] + "/";
+        }
         NetworkGraph ng = TopologyFileReader.readFromFile(base + "topology");
         VnfLib lib = VnfLibReader.readFromFile(base + "vnfLib2");
         TrafficRequest[] reqs = TrafficRequestsReader.readFromFile(base + "requests", ng, lib);
         ProblemInstance pi = new ProblemInstance(ng, lib, reqs);
 
-        ParetoFrontier<GridGraphSolution> pf = new BruteForceSolver(pi).solve();
+        BruteForceSolver solver = new BruteForceSolver(pi);
+        AllPairsShortestPaths paths = ng.getBfsPaths();
+        System.out.println(String.format("All-pairs shortest paths (hops) for %d nodes: about %.1f MB.",
+                paths.getNumNodes(), paths.getMemoryBytes() / 1e6));
+        solver.setParallelism(threads);
+        solver.setSymmetryReduction(symmetry);
+        solver.setDelayConstrainedRouting(delayRouting);
+        ParetoFrontier<GridGraphSolution> pf;
+        if (shard) {
+            solver.setShard(Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+            solver.setCheckpoint(Paths.get(args[4]), 100_000_000L);
+            if (args.length == 6) solver.setParallelism(Integer.parseInt(args[5]));
+            pf = solver.solve();
+        }
+        else if (merge) {
+            pf = solver.mergeShards(Arrays.stream(args, 2, args.length).map(Paths::get).collect(Collectors.toList()));
+        }
+        else {
+            pf = solver.solve();
+        }
         System.out.println("Frontier [CPU, Hops]:");
         for (GridGraphSolution s : pf) {
             System.out.println(Arrays.toString(s.getObj()));
@@ -338,6 +1744,10 @@ public class BruteForceSolver {
         }
     }
 
+    private static void printUsage() {
+        System.err.println("Usage: [--threads n] [--symmetry] [--delay-routing] [shard base index count file [threads] | merge base file...]");
+    }
+
     // Create demands for the problem:
     public static void main2(String[] args) {
         Locale.setDefault(Locale.US);
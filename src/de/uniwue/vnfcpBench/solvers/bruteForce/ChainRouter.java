@@ -0,0 +1,194 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+import java.util.Arrays;
+
+/**
+ * Routes the segments of a chain (from the ingress to the first VNF, between two VNFs, and from the last VNF
+ * to the egress) with the fewest hops in total, such that the delay of the whole chain stays within its bound.
+ * <p>
+ * Each segment can take any path of the hop-delay frontier between its nodes
+ * (see {@link FlowUtils#hopDelayFrontier}). A dynamic program over the segments keeps the Pareto-optimal
+ * (hops, delay) labels of the segments so far: each label of the previous segment is extended by every path
+ * of the next one, and dominated labels are dropped. Delays are summed up in segment order, as by the BFS
+ * evaluation. Among routings with the fewest hops, the one with the smallest delay is taken
+ * (and among those, the one with the earliest paths of the first segments).
+ * <p>
+ * An object reuses its arrays, so use one per thread.
+ */
+class ChainRouter {
+    private final double[][][] frontierHops;
+    private final double[][][] frontierDelay;
+
+    // Labels of each segment: hops, delay, label of the previous segment, and path of this segment:
+    private double[][] labelHops = new double[0][];
+    private double[][] labelDelay = new double[0][];
+    private int[][] labelParent = new int[0][];
+    private int[][] labelPath = new int[0][];
+    private int[] labelCount = new int[0];
+    // Label indices, for sorting:
+    private Integer[] order = new Integer[0];
+
+    private int[] paths = new int[0];
+    private double hops;
+    private double delay;
+
+    /**
+     * @param frontierHops  Hops of the frontier paths between each pair of nodes, indexed by [a][b][path].
+     * @param frontierDelay Delays of these paths.
+     */
+    ChainRouter(double[][][] frontierHops, double[][][] frontierDelay) {
+        this.frontierHops = frontierHops;
+        this.frontierDelay = frontierDelay;
+    }
+
+    /**
+     * Routes the segments between consecutive nodes.
+     *
+     * @param nodes     Nodes of the chain: ingress, the VNFs' locations, egress.
+     * @param count     Number of nodes.
+     * @param vnfDelays Delays of the VNFs, which are added after the segments' delays.
+     * @param maxDelay  Maximum delay of the whole chain.
+     * @return Whether a routing within the bound exists; then see {@link #getPath(int)},
+     * {@link #getHops()} and {@link #getDelay()}.
+     */
+    boolean route(int[] nodes, int count, double[] vnfDelays, double maxDelay) {
+        int segments = count - 1;
+        ensureCapacity(segments);
+
+        // Virtual label before the first segment:
+        int prevCount = 1;
+        double[] prevHops = {0.0};
+        double[] prevDelay = {0.0};
+        for (int k = 0; k < segments; k++) {
+            double[] h = frontierHops[nodes[k]][nodes[k + 1]];
+            double[] d = frontierDelay[nodes[k]][nodes[k + 1]];
+
+            // All extensions that can still meet the bound (delays only grow):
+            int n = 0;
+            double[] extHops = grow(k, prevCount * h.length);
+            for (int l = 0; l < prevCount; l++) {
+                for (int q = 0; q < h.length; q++) {
+                    double extDelay = prevDelay[l] + d[q];
+                    if (extDelay > maxDelay) continue;
+                    extHops[n] = prevHops[l] + h[q];
+                    labelDelay[k][n] = extDelay;
+                    labelParent[k][n] = l;
+                    labelPath[k][n] = q;
+                    n++;
+                }
+            }
+            if (n == 0) return false;
+            labelCount[k] = prune(k, n);
+            prevCount = labelCount[k];
+            prevHops = labelHops[k];
+            prevDelay = labelDelay[k];
+        }
+
+        // Labels are sorted by hops, so the first one within the bound (with the VNF delays) is the best one:
+        int last = segments - 1;
+        for (int l = 0; l < labelCount[last]; l++) {
+            double d = labelDelay[last][l];
+            for (double vd : vnfDelays) {
+                d += vd;
+            }
+            if (d > maxDelay) continue;
+
+            hops = labelHops[last][l];
+            delay = d;
+            for (int k = last, x = l; k >= 0; k--) {
+                paths[k] = labelPath[k][x];
+                x = labelParent[k][x];
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sorts the labels of a segment by (hops, delay, creation order) and keeps only the Pareto-optimal ones,
+     * whose delay decreases with more hops.
+     *
+     * @return Number of remaining labels.
+     */
+    private int prune(int k, int n) {
+        double[] lh = labelHops[k], ld = labelDelay[k];
+        for (int x = 0; x < n; x++) {
+            order[x] = x;
+        }
+        Arrays.sort(order, 0, n, (a, b) -> {
+            int c = Double.compare(lh[a], lh[b]);
+            if (c == 0) c = Double.compare(ld[a], ld[b]);
+            return (c != 0) ? c : Integer.compare(a, b);
+        });
+
+        double[] h = Arrays.copyOf(lh, n);
+        double[] d = Arrays.copyOf(ld, n);
+        int[] parent = Arrays.copyOf(labelParent[k], n);
+        int[] path = Arrays.copyOf(labelPath[k], n);
+        int m = 0;
+        double best = Double.POSITIVE_INFINITY;
+        for (int x = 0; x < n; x++) {
+            int o = order[x];
+            if (d[o] >= best) continue;
+            best = d[o];
+            lh[m] = h[o];
+            ld[m] = d[o];
+            labelParent[k][m] = parent[o];
+            labelPath[k][m] = path[o];
+            m++;
+        }
+        return m;
+    }
+
+    private void ensureCapacity(int segments) {
+        if (labelCount.length < segments) {
+            labelHops = Arrays.copyOf(labelHops, segments);
+            labelDelay = Arrays.copyOf(labelDelay, segments);
+            labelParent = Arrays.copyOf(labelParent, segments);
+            labelPath = Arrays.copyOf(labelPath, segments);
+            labelCount = new int[segments];
+            paths = new int[segments];
+        }
+    }
+
+    /**
+     * Makes room for {@code size} labels of segment k.
+     *
+     * @return Hops of the labels.
+     */
+    private double[] grow(int k, int size) {
+        if (labelHops[k] == null || labelHops[k].length < size) {
+            int capacity = Math.max(16, Integer.highestOneBit(size) * 2);
+            labelHops[k] = new double[capacity];
+            labelDelay[k] = new double[capacity];
+            labelParent[k] = new int[capacity];
+            labelPath[k] = new int[capacity];
+        }
+        if (order.length < size) {
+            order = new Integer[Math.max(16, Integer.highestOneBit(size) * 2)];
+        }
+        return labelHops[k];
+    }
+
+    /**
+     * @param segment Index of the segment (0 = from the ingress).
+     * @return Index of its path in the frontier of its nodes.
+     */
+    int getPath(int segment) {
+        return paths[segment];
+    }
+
+    /**
+     * @return Total hops of the routing.
+     */
+    double getHops() {
+        return hops;
+    }
+
+    /**
+     * @return Total delay of the routing, including the VNFs.
+     */
+    double getDelay() {
+        return delay;
+    }
+}
@@ -0,0 +1,277 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+import de.uniwue.vnfcpBench.model.Node;
+import de.uniwue.vnfcpBench.model.solution.BiObjectiveParetoFrontier;
+import de.uniwue.vnfcpBench.model.solution.GridGraphSolution;
+import de.uniwue.vnfcpBench.model.solution.ParetoFrontier;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Progress of a {@link BruteForceSolver} run that is split into subspaces by fixing the first
+ * {@code depth} positions: which subspaces are completed, and the frontier solutions found in them.
+ * <p>
+ * Only solutions that survive merging all completed subspaces in index order are kept (together with
+ * the subspace they were found in), so the file stays as small as the frontier and merging the
+ * remaining subspaces later gives the same result as an uninterrupted run.
+ * <p>
+ * The merged frontier is kept up to date: completing a subspace only inserts its solutions into it.
+ * Among equal objective vectors, the solution of the subspace with the smaller index wins, so the result
+ * does not depend on the order in which the subspaces are completed. Saving copies the state under the lock
+ * and writes the file outside of it, so workers can complete subspaces meanwhile.
+ */
+class Checkpoint {
+    private static final int MAGIC = 0x56434b50;
+    private static final int VERSION = 1;
+
+    final long fingerprint;
+    final int depth;
+    final int subspaces;
+    private final BitSet completed;
+    private final TreeMap<Integer, ParetoFrontier<GridGraphSolution>> results;
+    // Frontier of all completed subspaces, and the subspace of each of its solutions:
+    private BiObjectiveParetoFrontier<GridGraphSolution> merged;
+    private final IdentityHashMap<GridGraphSolution, Integer> origin;
+    // Serializes the file writes (without blocking the other methods):
+    private final Object saveLock = new Object();
+
+    Checkpoint(long fingerprint, int depth, int subspaces) {
+        this.fingerprint = fingerprint;
+        this.depth = depth;
+        this.subspaces = subspaces;
+        this.completed = new BitSet(subspaces);
+        this.results = new TreeMap<>();
+        this.merged = new BiObjectiveParetoFrontier<>();
+        this.origin = new IdentityHashMap<>();
+    }
+
+    synchronized boolean isCompleted(int subspace) {
+        return completed.get(subspace);
+    }
+
+    /**
+     * @return Number of completed subspaces in [from, to).
+     */
+    synchronized int getCompletedCount(int from, int to) {
+        return completed.get(from, to).cardinality();
+    }
+
+    /**
+     * Marks a subspace as completed, and inserts its solutions into the merged frontier.
+     *
+     * @param subspace Index of the subspace.
+     * @param pf       Frontier found in this subspace (copied).
+     */
+    synchronized void complete(int subspace, ParetoFrontier<GridGraphSolution> pf) {
+        completed.set(subspace);
+        // (A frontier passed in again later, e.g. by a sequential run, keeps each solution in its first subspace.)
+        for (GridGraphSolution s : pf) {
+            if (!origin.containsKey(s)) insert(s, subspace);
+        }
+    }
+
+    /**
+     * Inserts a solution into the merged frontier, and drops everything that can no longer be part of it.
+     */
+    private void insert(GridGraphSolution s, int subspace) {
+        double cpu = s.getObj(0), hops = s.getObj(1);
+        int k = indexOf(cpu);
+        if (k >= 0 && merged.get(k).getObj(1) == hops) {
+            // Equal objectives: the earlier subspace wins.
+            if (origin.get(merged.get(k)) <= subspace) return;
+            drop(merged.remove(k));
+        }
+
+        ArrayList<GridGraphSolution> removed = merged.updateParetoFrontier(s);
+        if (removed == null) return;
+        for (GridGraphSolution r : removed) {
+            drop(r);
+        }
+        origin.put(s, subspace);
+        results.computeIfAbsent(subspace, i -> new ParetoFrontier<>()).add(s);
+    }
+
+    /**
+     * @return Index of the solution of the merged frontier with the given first objective, or -1.
+     */
+    private int indexOf(double cpu) {
+        int lo = 0, hi = merged.size() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            double c = merged.get(mid).getObj(0);
+            if (c < cpu) lo = mid + 1;
+            else if (c > cpu) hi = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    private void drop(GridGraphSolution s) {
+        int subspace = origin.remove(s);
+        ParetoFrontier<GridGraphSolution> r = results.get(subspace);
+        for (int i = 0; i < r.size(); i++) {
+            if (r.get(i) == s) {
+                r.remove(i);
+                break;
+            }
+        }
+        if (r.isEmpty()) results.remove(subspace);
+    }
+
+    /**
+     * Merges the results in index order again, after they were replaced as a whole.
+     */
+    private void remerge() {
+        merged = BiObjectiveParetoFrontier.merge(results.values());
+        origin.clear();
+        Set<GridGraphSolution> survivors = Collections.newSetFromMap(new IdentityHashMap<>());
+        survivors.addAll(merged);
+        Iterator<Map.Entry<Integer, ParetoFrontier<GridGraphSolution>>> it = results.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, ParetoFrontier<GridGraphSolution>> e = it.next();
+            e.getValue().removeIf(s -> !survivors.remove(s));
+            for (GridGraphSolution s : e.getValue()) {
+                origin.put(s, e.getKey());
+            }
+            if (e.getValue().isEmpty()) it.remove();
+        }
+    }
+
+    /**
+     * Adds the completed subspaces of another checkpoint with the same split, e.g. of another shard.
+     */
+    synchronized void merge(Checkpoint other) {
+        if (other.depth != depth) {
+            throw new IllegalStateException("Checkpoints have different splits: depth " + depth + " and " + other.depth);
+        }
+        completed.or(other.completed);
+        for (Map.Entry<Integer, ParetoFrontier<GridGraphSolution>> e : other.results.entrySet()) {
+            results.putIfAbsent(e.getKey(), copy(e.getValue()));
+        }
+        remerge();
+    }
+
+    /**
+     * @return Frontier found in the given subspace (empty, if it is not completed).
+     */
+    synchronized ParetoFrontier<GridGraphSolution> getResult(int subspace) {
+        ParetoFrontier<GridGraphSolution> r = results.get(subspace);
+        return (r == null) ? new ParetoFrontier<>() : copy(r);
+    }
+
+    /**
+     * @return Frontier of all completed subspaces, merged in index order.
+     */
+    synchronized ParetoFrontier<GridGraphSolution> getMerged() {
+        return new BiObjectiveParetoFrontier<>(merged);
+    }
+
+    private static ParetoFrontier<GridGraphSolution> copy(ParetoFrontier<GridGraphSolution> pf) {
+        ParetoFrontier<GridGraphSolution> c = new ParetoFrontier<>();
+        c.addAll(pf);
+        return c;
+    }
+
+    /**
+     * Writes this checkpoint to a temporary file first, which then replaces the given file.
+     * So an interrupted write never destroys the previous checkpoint.
+     *
+     * @param file         Checkpoint file.
+     * @param cpuLocations CPU locations, whose indices are stored instead of the nodes.
+     */
+    void save(Path file, Node[] cpuLocations) throws IOException {
+        synchronized (saveLock) {
+            long[] bits;
+            TreeMap<Integer, ParetoFrontier<GridGraphSolution>> snapshot = new TreeMap<>();
+            synchronized (this) {
+                bits = completed.toLongArray();
+                for (Map.Entry<Integer, ParetoFrontier<GridGraphSolution>> e : results.entrySet()) {
+                    snapshot.put(e.getKey(), copy(e.getValue()));
+                }
+            }
+            write(file, cpuLocations, bits, snapshot);
+        }
+    }
+
+    private void write(Path file, Node[] cpuLocations, long[] bits, TreeMap<Integer, ParetoFrontier<GridGraphSolution>> results)
+            throws IOException {
+        HashMap<Node, Integer> nodeToId = new HashMap<>();
+        for (int i = 0; i < cpuLocations.length; i++) {
+            nodeToId.put(cpuLocations[i], i);
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(depth);
+            out.writeInt(subspaces);
+
+            out.writeInt(bits.length);
+            for (long b : bits) out.writeLong(b);
+
+            out.writeInt(results.size());
+            for (Map.Entry<Integer, ParetoFrontier<GridGraphSolution>> e : results.entrySet()) {
+                out.writeInt(e.getKey());
+                out.writeInt(e.getValue().size());
+                for (GridGraphSolution s : e.getValue()) {
+                    out.writeDouble(s.cpu);
+                    out.writeDouble(s.hops);
+                    for (Node[] seq : s.vnfSeqs) {
+                        for (Node n : seq) {
+                            out.writeShort(nodeToId.get(n));
+                        }
+                    }
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a checkpoint written by {@link #save(Path, Node[])}.
+     *
+     * @param file         Checkpoint file.
+     * @param cpuLocations CPU locations, in the same order as when saving.
+     * @param chainLengths Number of VNFs of each request.
+     */
+    static Checkpoint load(Path file, Node[] cpuLocations, int[] chainLengths) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            Checkpoint cp = new Checkpoint(in.readLong(), in.readInt(), in.readInt());
+
+            long[] bits = new long[in.readInt()];
+            for (int i = 0; i < bits.length; i++) bits[i] = in.readLong();
+            cp.completed.or(BitSet.valueOf(bits));
+
+            int numResults = in.readInt();
+            for (int r = 0; r < numResults; r++) {
+                int subspace = in.readInt();
+                int size = in.readInt();
+                ParetoFrontier<GridGraphSolution> pf = new ParetoFrontier<>();
+                for (int k = 0; k < size; k++) {
+                    double cpu = in.readDouble();
+                    double hops = in.readDouble();
+                    Node[][] vnfSeqs = new Node[chainLengths.length][];
+                    for (int i = 0; i < chainLengths.length; i++) {
+                        vnfSeqs[i] = new Node[chainLengths[i]];
+                        for (int j = 0; j < chainLengths[i]; j++) {
+                            vnfSeqs[i][j] = cpuLocations[in.readUnsignedShort()];
+                        }
+                    }
+                    pf.add(new GridGraphSolution(vnfSeqs, cpu, hops));
+                }
+                cp.results.put(subspace, pf);
+            }
+            cp.remerge();
+            return cp;
+        }
+    }
+}
@@ -1,9 +1,15 @@
 package de.uniwue.vnfcpBench.solvers.bruteForce;
 
+import de.uniwue.vnfcpBench.model.AllPairsShortestPaths;
+import de.uniwue.vnfcpBench.model.CsrGraph;
 import de.uniwue.vnfcpBench.model.Link;
+import de.uniwue.vnfcpBench.model.LinkPath;
 import de.uniwue.vnfcpBench.model.Node;
+import de.uniwue.vnfcpBench.model.ShortestPathTree;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Contains static methods to faciliate TrafficFlow creation by
@@ -12,6 +18,13 @@ import java.util.*;
  * @author alex
  */
 public class FlowUtils {
+    // Heap of the Dijkstra searches of each thread, reused across searches:
+    private static final ThreadLocal<IndexedMinHeap> HEAPS = ThreadLocal.withInitial(() -> new IndexedMinHeap(0));
+    // Work arrays of the point-to-point searches of each thread:
+    private static final ThreadLocal<BidirectionalSearch> BIDIRECTIONAL = ThreadLocal.withInitial(BidirectionalSearch::new);
+    // Work arrays of the tree repairs of each thread:
+    private static final ThreadLocal<TreeRepair> REPAIRS = ThreadLocal.withInitial(TreeRepair::new);
+
     /**
      * Performs a shortest path search (wrt. hops) from the given start (z.B. {@code req.ingress})
      * and returns a corresponding mapping (Node -> Backpointer).
@@ -89,4 +102,688 @@ public class FlowUtils {
 
         return att;
     }
+
+    /**
+     * Same as {@link #bfs(Node)}, on the arrays of a {@link CsrGraph}.
+     * Ties are broken explicitly, so they do not depend on the order of the arcs: among the predecessors of a node
+     * with the same number of hops, the one with the smallest delay is used, and among those the one with the
+     * lowest link id. Hence each path has the smallest delay of all paths with the fewest hops (whereas
+     * {@link #bfs(Node)} takes the first path found in the order of the neighbours).
+     *
+     * @param g      Graph.
+     * @param source Id of the start node.
+     * @return Paths with minimal number of hops.
+     */
+    public static ShortestPathTree bfs(CsrGraph g, int source) {
+        return bfs(g, source, new int[g.getNumNodes()]);
+    }
+
+    /**
+     * @param queue Work array with one entry per node (can be reused by the same thread).
+     */
+    static ShortestPathTree bfs(CsrGraph g, int source, int[] queue) {
+        ShortestPathTree t = new ShortestPathTree(g, source);
+        float[] hops = t.hops;
+        double[] delay = t.delay;
+        int[] predLink = t.predLink;
+
+        int head = 0, tail = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int u = queue[head++];
+            for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                int v = g.targets[a];
+                int l = g.arcLinks[a];
+                double d = delay[u] + g.delay[l];
+                if (hops[v] == Float.POSITIVE_INFINITY) {
+                    hops[v] = hops[u] + 1;
+                    delay[v] = d;
+                    predLink[v] = l;
+                    queue[tail++] = v;
+                }
+                // Another predecessor in the same layer (whose delays are final, as the previous layer is done):
+                else if (hops[v] == hops[u] + 1 && (d < delay[v] || d == delay[v] && l < predLink[v])) {
+                    delay[v] = d;
+                    predLink[v] = l;
+                }
+            }
+        }
+
+        return t;
+    }
+
+    /**
+     * Same as {@link #dijkstra(Node)}, on the arrays of a {@link CsrGraph}: the hops, delay and last link of
+     * a path with minimal delay to each node. A path only replaces another one if its delay is strictly smaller.
+     * <p>
+     * Uses an indexed heap with decrease-key (so each node is in the heap at most once), whose arrays are
+     * reused by later searches of the same thread; only the result arrays are allocated.
+     *
+     * @param g      Graph (with non-negative delays).
+     * @param source Id of the start node.
+     * @return Paths with minimal delay.
+     */
+    public static ShortestPathTree dijkstra(CsrGraph g, int source) {
+        ShortestPathTree t = new ShortestPathTree(g, source);
+        float[] hops = t.hops;
+        double[] delay = t.delay;
+        int[] predLink = t.predLink;
+
+        IndexedMinHeap q = HEAPS.get();
+        q.reset(delay);
+        q.insertOrDecrease(source);
+
+        // Settled nodes cannot be improved, since delays are non-negative:
+        while (!q.isEmpty()) {
+            int u = q.poll();
+            for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                int v = g.targets[a];
+                int l = g.arcLinks[a];
+                double d = delay[u] + g.delay[l];
+                if (delay[v] > d) {
+                    hops[v] = hops[u] + 1;
+                    delay[v] = d;
+                    predLink[v] = l;
+                    q.insertOrDecrease(v);
+                }
+            }
+        }
+
+        return t;
+    }
+
+    /**
+     * Finds a shortest path (wrt. delay or hops) between two nodes, without computing a whole
+     * {@link ShortestPathTree}: a search from the source and a backward search from the target run in turns,
+     * and stop as soon as no path through a node that is still unexplored by both could be shorter
+     * than the best path through a node they both reached. Among equally short paths, the one found first is returned.
+     * <p>
+     * The work arrays are reused by later searches of the same thread, so only the path is allocated.
+     *
+     * @param g       Graph (with non-negative delays).
+     * @param source  Id of the start node.
+     * @param target  Id of the end node.
+     * @param byDelay Whether to minimize the delay (bidirectional Dijkstra) instead of the hops (bidirectional BFS).
+     * @return Path, or <tt>null</tt> if the target is unreachable.
+     */
+    public static LinkPath shortestPath(CsrGraph g, int source, int target, boolean byDelay) {
+        BidirectionalSearch search = BIDIRECTIONAL.get();
+        int meet = search.run(g, source, target, byDelay);
+        return (meet < 0) ? null : search.toPath(g, source, target, meet);
+    }
+
+    /**
+     * Same as {@link #shortestPath(CsrGraph, int, int, boolean)}, but only returns the length of the path,
+     * so nothing is allocated.
+     *
+     * @return Delay or number of hops of a shortest path (infinity, if the target is unreachable).
+     */
+    public static double distance(CsrGraph g, int source, int target, boolean byDelay) {
+        BidirectionalSearch search = BIDIRECTIONAL.get();
+        return (search.run(g, source, target, byDelay) < 0) ? Double.POSITIVE_INFINITY : search.length;
+    }
+
+    /**
+     * Work arrays of bidirectional searches: distance and last link of the forward (F) and backward (B) search.
+     * A node's entries are only valid if it was reached in the current search (its {@code seen} entry equals
+     * the search number), so the arrays need not be cleared between searches.
+     */
+    private static class BidirectionalSearch {
+        private double[] distF = new double[0], distB = new double[0];
+        private int[] predF = new int[0], predB = new int[0];
+        private int[] seenF = new int[0], seenB = new int[0];
+        private int[] queueF = new int[0], queueB = new int[0];
+        private final IndexedMinHeap heapF = new IndexedMinHeap(0), heapB = new IndexedMinHeap(0);
+        private int epoch;
+        // Length of the path found by the last search:
+        private double length;
+
+        /**
+         * @return Id of the node where the shortest path was found (on which both searches meet), or -1.
+         */
+        int run(CsrGraph g, int source, int target, boolean byDelay) {
+            int n = g.getNumNodes();
+            if (source < 0 || source >= n || target < 0 || target >= n) {
+                throw new IllegalArgumentException("source = " + source + ", target = " + target);
+            }
+            if (distF.length != n) {
+                distF = new double[n];
+                distB = new double[n];
+                predF = new int[n];
+                predB = new int[n];
+                seenF = new int[n];
+                seenB = new int[n];
+                queueF = new int[n];
+                queueB = new int[n];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(seenF, 0);
+                Arrays.fill(seenB, 0);
+                epoch = 1;
+            }
+
+            seenF[source] = epoch;
+            distF[source] = 0.0;
+            predF[source] = -1;
+            seenB[target] = epoch;
+            distB[target] = 0.0;
+            predB[target] = -1;
+            length = 0.0;
+            if (source == target) return source;
+
+            return byDelay ? dijkstra(g, source, target) : bfs(g, source, target);
+        }
+
+        private int dijkstra(CsrGraph g, int source, int target) {
+            heapF.reset(distF);
+            heapB.reset(distB);
+            heapF.insertOrDecrease(source);
+            heapB.insertOrDecrease(target);
+
+            int meet = -1;
+            double best = Double.POSITIVE_INFINITY;
+            while (!heapF.isEmpty() && !heapB.isEmpty()) {
+                double minF = distF[heapF.peek()], minB = distB[heapB.peek()];
+                // Paths through unsettled nodes are at least this long:
+                if (minF + minB >= best) break;
+
+                if (minF <= minB) {
+                    int u = heapF.poll();
+                    for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                        int v = g.targets[a];
+                        double d = distF[u] + g.delay[g.arcLinks[a]];
+                        if (seenF[v] != epoch || distF[v] > d) {
+                            seenF[v] = epoch;
+                            distF[v] = d;
+                            predF[v] = g.arcLinks[a];
+                            heapF.insertOrDecrease(v);
+                            if (seenB[v] == epoch && d + distB[v] < best) {
+                                best = d + distB[v];
+                                meet = v;
+                            }
+                        }
+                    }
+                }
+                else {
+                    int u = heapB.poll();
+                    for (int a = g.inOffsets[u]; a < g.inOffsets[u + 1]; a++) {
+                        int v = g.sources[a];
+                        double d = distB[u] + g.delay[g.inArcLinks[a]];
+                        if (seenB[v] != epoch || distB[v] > d) {
+                            seenB[v] = epoch;
+                            distB[v] = d;
+                            predB[v] = g.inArcLinks[a];
+                            heapB.insertOrDecrease(v);
+                            if (seenF[v] == epoch && distF[v] + d < best) {
+                                best = distF[v] + d;
+                                meet = v;
+                            }
+                        }
+                    }
+                }
+            }
+
+            length = best;
+            return meet;
+        }
+
+        /**
+         * Expands whole layers, always on the side with the smaller frontier.
+         */
+        private int bfs(CsrGraph g, int source, int target) {
+            int headF = 0, tailF = 0, headB = 0, tailB = 0;
+            queueF[tailF++] = source;
+            queueB[tailB++] = target;
+
+            int meet = -1;
+            double best = Double.POSITIVE_INFINITY;
+            double depthF = 0.0, depthB = 0.0;
+            // All paths with at most depthF + depthB hops have been found:
+            while (headF < tailF && headB < tailB && depthF + depthB + 1.0 < best) {
+                if (tailF - headF <= tailB - headB) {
+                    for (int end = tailF; headF < end; headF++) {
+                        int u = queueF[headF];
+                        for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                            int v = g.targets[a];
+                            if (seenF[v] == epoch) continue;
+                            seenF[v] = epoch;
+                            distF[v] = distF[u] + 1.0;
+                            predF[v] = g.arcLinks[a];
+                            queueF[tailF++] = v;
+                            if (seenB[v] == epoch && distF[v] + distB[v] < best) {
+                                best = distF[v] + distB[v];
+                                meet = v;
+                            }
+                        }
+                    }
+                    depthF++;
+                }
+                else {
+                    for (int end = tailB; headB < end; headB++) {
+                        int u = queueB[headB];
+                        for (int a = g.inOffsets[u]; a < g.inOffsets[u + 1]; a++) {
+                            int v = g.sources[a];
+                            if (seenB[v] == epoch) continue;
+                            seenB[v] = epoch;
+                            distB[v] = distB[u] + 1.0;
+                            predB[v] = g.inArcLinks[a];
+                            queueB[tailB++] = v;
+                            if (seenF[v] == epoch && distF[v] + distB[v] < best) {
+                                best = distF[v] + distB[v];
+                                meet = v;
+                            }
+                        }
+                    }
+                    depthB++;
+                }
+            }
+
+            length = best;
+            return meet;
+        }
+
+        /**
+         * Joins the forward path to the meeting node and the backward path from it.
+         */
+        LinkPath toPath(CsrGraph g, int source, int target, int meet) {
+            int hopsF = 0, hopsB = 0;
+            for (int v = meet; v != source; v = g.getOther(predF[v], v)) hopsF++;
+            for (int v = meet; v != target; v = g.getOther(predB[v], v)) hopsB++;
+
+            int[] links = new int[hopsF + hopsB];
+            for (int v = meet, i = hopsF - 1; v != source; v = g.getOther(predF[v], v), i--) {
+                links[i] = predF[v];
+            }
+            for (int v = meet, i = hopsF; v != target; v = g.getOther(predB[v], v), i++) {
+                links[i] = predB[v];
+            }
+
+            double delay = 0.0;
+            for (int l : links) delay += g.delay[l];
+            return new LinkPath(source, target, links, delay);
+        }
+    }
+
+    /**
+     * Finds a path with the fewest hops among all paths whose delay does not exceed a bound
+     * (a resource-constrained shortest path), e.g. to route a flow that the BFS path is too slow for.
+     * Among paths with the same number of hops, the one with the smallest delay is returned.
+     *
+     * @param g        Graph (with non-negative delays).
+     * @param source   Id of the start node.
+     * @param target   Id of the end node.
+     * @param maxDelay Maximum delay of the path. (μs)
+     * @return Path, or <tt>null</tt> if every path exceeds the delay bound.
+     * @see #hopDelayFrontier(CsrGraph, int, int)
+     */
+    public static LinkPath delayConstrainedPath(CsrGraph g, int source, int target, double maxDelay) {
+        List<LinkPath> paths = new HopDelaySearch(g, source, target, maxDelay).run(true);
+        return paths.isEmpty() ? null : paths.get(0);
+    }
+
+    /**
+     * Finds all Pareto-optimal paths wrt. (hops, delay) from source to target: for every number of hops,
+     * a path with the smallest delay, if it is smaller than that of all paths with fewer hops.
+     * The fewest-hop path under any delay bound D is the first path with a delay of at most D.
+     *
+     * @param g      Graph (with non-negative delays).
+     * @param source Id of the start node.
+     * @param target Id of the end node.
+     * @return Paths, from the fewest hops (the path of {@link #bfs(CsrGraph, int)}) to the smallest delay
+     * (Dijkstra); empty, if unreachable.
+     */
+    public static List<LinkPath> hopDelayFrontier(CsrGraph g, int source, int target) {
+        return new HopDelaySearch(g, source, target, Double.POSITIVE_INFINITY).run(false);
+    }
+
+    /**
+     * Label-setting search over (hops, delay) labels. Since every link adds one hop, the labels are created
+     * in layers of equal hops, and a new label at a node is dominated iff its delay is not smaller than that of
+     * the best label at the node so far. Hence each node keeps at most one label per layer, and the labels of
+     * a node have strictly decreasing delays. Labels with a delay above the bound, or not below the best delay
+     * at the target, are pruned. Paths are loopless, as a cycle cannot decrease the delay.
+     * Ties follow the rule of {@link #bfs(CsrGraph, int)}: among labels with the same hops and delay, the one
+     * with the lowest last link id is kept. So the first path to a node is the path of the BFS tree.
+     */
+    private static class HopDelaySearch {
+        private final CsrGraph g;
+        private final int source, target;
+        private final double maxDelay;
+
+        // Labels, by index: node, delay, previous label and last link
+        private int[] labelNode = new int[16];
+        private double[] labelDelay = new double[16];
+        private int[] labelPred = new int[16];
+        private int[] labelLink = new int[16];
+        private int numLabels;
+
+        HopDelaySearch(CsrGraph g, int source, int target, double maxDelay) {
+            int n = g.getNumNodes();
+            if (source < 0 || source >= n || target < 0 || target >= n) {
+                throw new IllegalArgumentException("source = " + source + ", target = " + target);
+            }
+            this.g = g;
+            this.source = source;
+            this.target = target;
+            this.maxDelay = maxDelay;
+        }
+
+        /**
+         * @param first Whether to stop at the first layer that reaches the target.
+         * @return Paths to the target, one per layer that improved its delay.
+         */
+        List<LinkPath> run(boolean first) {
+            ArrayList<LinkPath> paths = new ArrayList<>();
+            if (maxDelay < 0.0) return paths;
+
+            int n = g.getNumNodes();
+            double[] best = new double[n];
+            int[] layerLabel = new int[n];
+            int[] layerOf = new int[n];
+            Arrays.fill(best, Double.POSITIVE_INFINITY);
+            Arrays.fill(layerOf, -1);
+
+            best[source] = 0.0;
+            add(source, 0.0, -1, -1);
+            if (source == target) {
+                paths.add(new LinkPath(source, target, new int[0], 0.0));
+                return paths;
+            }
+
+            int from = 0, to = 1;
+            for (int hops = 1; from < to; hops++) {
+                for (int i = from; i < to; i++) {
+                    int u = labelNode[i];
+                    for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                        int v = g.targets[a];
+                        int l = g.arcLinks[a];
+                        double d = labelDelay[i] + g.delay[l];
+                        if (d > maxDelay || d > best[v] || v != target && d >= best[target]) continue;
+                        // Equal delays: only a lower link id in the same layer replaces the label:
+                        if (d == best[v] && (layerOf[v] != hops || l > labelLink[layerLabel[v]])) continue;
+
+                        best[v] = d;
+                        if (layerOf[v] == hops) {
+                            // Replaces the (dominated) label with the same hops:
+                            int k = layerLabel[v];
+                            labelDelay[k] = d;
+                            labelPred[k] = i;
+                            labelLink[k] = l;
+                        }
+                        else {
+                            layerOf[v] = hops;
+                            layerLabel[v] = add(v, d, i, l);
+                        }
+                    }
+                }
+
+                if (layerOf[target] == hops) {
+                    paths.add(toPath(layerLabel[target], hops));
+                    if (first) break;
+                }
+                from = to;
+                to = numLabels;
+            }
+
+            return paths;
+        }
+
+        private int add(int node, double delay, int pred, int link) {
+            if (numLabels == labelNode.length) {
+                int size = 2 * numLabels;
+                labelNode = Arrays.copyOf(labelNode, size);
+                labelDelay = Arrays.copyOf(labelDelay, size);
+                labelPred = Arrays.copyOf(labelPred, size);
+                labelLink = Arrays.copyOf(labelLink, size);
+            }
+            labelNode[numLabels] = node;
+            labelDelay[numLabels] = delay;
+            labelPred[numLabels] = pred;
+            labelLink[numLabels] = link;
+            return numLabels++;
+        }
+
+        private LinkPath toPath(int label, int hops) {
+            int[] links = new int[hops];
+            double delay = labelDelay[label];
+            for (int k = label, i = hops - 1; i >= 0; k = labelPred[k], i--) {
+                links[i] = labelLink[k];
+            }
+            return new LinkPath(source, target, links, delay);
+        }
+    }
+
+    /**
+     * Repairs a tree of {@link #bfs(CsrGraph, int)} or {@link #dijkstra(CsrGraph, int)} in place after a link was
+     * added or its delay was decreased (Ramalingam and Reps): only the nodes whose distance decreases are
+     * searched again, starting at the link's nodes, in the order of their new distance.
+     * A path is only replaced by a strictly shorter one, so unlike {@link #bfs(CsrGraph, int)}, the repaired
+     * tree does not break ties by the delay.
+     *
+     * @param g       Graph after the edit.
+     * @param t       Tree of the graph before the edit.
+     * @param link    Id of the new or shortened link.
+     * @param byDelay Whether the tree minimizes the delay instead of the hops.
+     * @return Number of nodes that got a new path.
+     */
+    public static int repairDecrease(CsrGraph g, ShortestPathTree t, int link, boolean byDelay) {
+        TreeRepair r = REPAIRS.get();
+        r.init(g, t, byDelay);
+        int node1 = g.linkNode1[link], node2 = g.linkNode2[link];
+        r.relax(node1, node2, link);
+        if (g.isUndirected(link)) r.relax(node2, node1, link);
+        return r.settle(false);
+    }
+
+    /**
+     * Repairs a tree in place after the last link of the path to {@code root} was removed or lengthened
+     * (Ramalingam and Reps): only the paths of the subtree below this link can get longer. The nodes of the
+     * subtree are reset; each one starts with its shortest path via a node outside the subtree, and the
+     * subtree is searched again from there. All other paths stay as they are.
+     *
+     * @param g       Graph after the edit.
+     * @param t       Tree of the graph before the edit.
+     * @param root    Id of the node whose path ended with the link.
+     * @param byDelay Whether the tree minimizes the delay instead of the hops.
+     * @return Number of nodes in the subtree.
+     */
+    public static int repairIncrease(CsrGraph g, ShortestPathTree t, int root, boolean byDelay) {
+        TreeRepair r = REPAIRS.get();
+        r.init(g, t, byDelay);
+        int size = r.collectSubtree(root);
+        for (int i = 0; i < size; i++) {
+            int v = r.subtree[i];
+            t.hops[v] = Float.POSITIVE_INFINITY;
+            t.delay[v] = Double.POSITIVE_INFINITY;
+            t.predLink[v] = -1;
+        }
+        for (int i = 0; i < size; i++) {
+            int v = r.subtree[i];
+            for (int a = g.inOffsets[v]; a < g.inOffsets[v + 1]; a++) {
+                if (!r.inSubtree(g.sources[a])) r.relax(g.sources[a], v, g.inArcLinks[a]);
+            }
+        }
+        r.settle(true);
+        return size;
+    }
+
+    /**
+     * Updates the delays of a tree of {@link #bfs(CsrGraph, int)} in place after the delay of the last link of
+     * the path to {@code root} changed: the paths stay the same (as they have the fewest hops),
+     * but the delays of the subtree below this link change.
+     *
+     * @param g    Graph after the edit.
+     * @param t    Tree of the graph before the edit.
+     * @param root Id of the node whose path ends with the link.
+     * @return Number of nodes in the subtree.
+     */
+    public static int repairDelays(CsrGraph g, ShortestPathTree t, int root) {
+        TreeRepair r = REPAIRS.get();
+        r.init(g, t, false);
+        // Parents come before their children:
+        int size = r.collectSubtree(root);
+        for (int i = 0; i < size; i++) {
+            int v = r.subtree[i];
+            t.delay[v] = t.delay[t.getPredNode(v)] + g.delay[t.predLink[v]];
+        }
+        return size;
+    }
+
+    /**
+     * Work arrays of tree repairs. The heap is keyed by the minimized metric (hops or delay) of the tree.
+     */
+    private static class TreeRepair {
+        private final IndexedMinHeap heap = new IndexedMinHeap(0);
+        private double[] key = new double[0];
+        private int[] subtree = new int[0];
+        private int[] mark = new int[0];
+        private int epoch;
+        private CsrGraph g;
+        private ShortestPathTree t;
+        private boolean byDelay;
+
+        void init(CsrGraph g, ShortestPathTree t, boolean byDelay) {
+            int n = g.getNumNodes();
+            if (key.length < n) {
+                key = new double[n];
+                subtree = new int[n];
+                mark = new int[n];
+                epoch = 0;
+            }
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(mark, 0);
+                epoch = 1;
+            }
+            this.g = g;
+            this.t = t;
+            this.byDelay = byDelay;
+            heap.reset(key);
+        }
+
+        private double dist(int v) {
+            return byDelay ? t.delay[v] : t.hops[v];
+        }
+
+        /**
+         * Takes the arc u -> v into the path to v, if it is strictly shorter.
+         */
+        void relax(int u, int v, int link) {
+            if (!t.isReachable(u)) return;
+            double d = byDelay ? t.delay[u] + g.delay[link] : t.hops[u] + 1;
+            if (d < dist(v)) {
+                t.hops[v] = t.hops[u] + 1;
+                t.delay[v] = t.delay[u] + g.delay[link];
+                t.predLink[v] = link;
+                key[v] = d;
+                heap.insertOrDecrease(v);
+            }
+        }
+
+        /**
+         * Runs the search on the nodes in the heap.
+         *
+         * @param subtreeOnly Whether to only relax arcs into the collected subtree.
+         * @return Number of settled nodes.
+         */
+        int settle(boolean subtreeOnly) {
+            int settled = 0;
+            while (!heap.isEmpty()) {
+                int u = heap.poll();
+                settled++;
+                for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                    int v = g.targets[a];
+                    if (!subtreeOnly || inSubtree(v)) relax(u, v, g.arcLinks[a]);
+                }
+            }
+            return settled;
+        }
+
+        /**
+         * Collects the root and all nodes whose path leads through it, parents before children.
+         *
+         * @return Number of nodes, which are in {@code subtree[0..size-1]}.
+         */
+        int collectSubtree(int root) {
+            int size = 0;
+            subtree[size++] = root;
+            mark[root] = epoch;
+            for (int i = 0; i < size; i++) {
+                int u = subtree[i];
+                for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                    int v = g.targets[a];
+                    // The arc u -> v is the last link of the path to v:
+                    if (t.predLink[v] == g.arcLinks[a] && mark[v] != epoch) {
+                        mark[v] = epoch;
+                        subtree[size++] = v;
+                    }
+                }
+            }
+            return size;
+        }
+
+        boolean inSubtree(int v) {
+            return mark[v] == epoch;
+        }
+    }
+
+    /**
+     * Computes the shortest paths from every node, one source per fork/join task.
+     * See {@link AllPairsShortestPaths#estimateBytes(int)} for the memory usage.
+     *
+     * @param g       Graph.
+     * @param byDelay Whether to minimize the delay (Dijkstra) instead of the hops (BFS).
+     * @param pool    Pool to run the searches on.
+     * @return Shortest paths between all pairs of nodes.
+     */
+    public static AllPairsShortestPaths allPairs(CsrGraph g, boolean byDelay, ForkJoinPool pool) {
+        int n = g.getNumNodes();
+        ShortestPathTree[] trees = new ShortestPathTree[n];
+        int leafSize = Math.max(1, n / (8 * pool.getParallelism()));
+        pool.invoke(new AllPairsTask(g, byDelay, trees, 0, n, leafSize));
+        return new AllPairsShortestPaths(trees, byDelay);
+    }
+
+    /**
+     * Same as {@link #allPairs(CsrGraph, boolean, ForkJoinPool)}, on the common pool.
+     */
+    public static AllPairsShortestPaths allPairs(CsrGraph g, boolean byDelay) {
+        return allPairs(g, byDelay, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Searches from the sources [from, to), splitting the range in halves down to {@code leafSize} sources.
+     */
+    private static class AllPairsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CsrGraph g;
+        private final boolean byDelay;
+        private final ShortestPathTree[] trees;
+        private final int from, to, leafSize;
+
+        AllPairsTask(CsrGraph g, boolean byDelay, ShortestPathTree[] trees, int from, int to, int leafSize) {
+            this.g = g;
+            this.byDelay = byDelay;
+            this.trees = trees;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                int[] queue = byDelay ? null : new int[g.getNumNodes()];
+                for (int u = from; u < to; u++) {
+                    trees[u] = byDelay ? dijkstra(g, u) : bfs(g, u, queue);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new AllPairsTask(g, byDelay, trees, from, mid, leafSize),
+                    new AllPairsTask(g, byDelay, trees, mid, to, leafSize));
+        }
+    }
 }
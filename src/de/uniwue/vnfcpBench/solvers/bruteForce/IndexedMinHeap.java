@@ -0,0 +1,119 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node ids with decrease-key, for Dijkstra searches on dense ids.
+ * The keys are not stored in the heap, but read from an external array (e.g. the delays of a
+ * {@link de.uniwue.vnfcpBench.model.ShortestPathTree}), which the caller lowers before calling
+ * {@link #insertOrDecrease(int)}. Equal keys are ordered by id, so searches are deterministic.
+ * <p>
+ * A heap can be reused for many searches without clearing: once it has been polled empty,
+ * all positions are unset again.
+ */
+class IndexedMinHeap {
+    private int[] heap;
+    // Position of each id in the heap, or -1:
+    private int[] pos;
+    private int size;
+    private double[] keys;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        pos = new int[capacity];
+        Arrays.fill(pos, -1);
+    }
+
+    /**
+     * Prepares the (empty) heap for a new search.
+     *
+     * @param keys Key of each id.
+     */
+    void reset(double[] keys) {
+        if (size != 0) {
+            for (int i = 0; i < size; i++) pos[heap[i]] = -1;
+            size = 0;
+        }
+        if (keys.length > pos.length) {
+            heap = new int[keys.length];
+            pos = new int[keys.length];
+            Arrays.fill(pos, -1);
+        }
+        this.keys = keys;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        return pos[id] >= 0;
+    }
+
+    /**
+     * Inserts the id, or moves it up after its key was lowered.
+     */
+    void insertOrDecrease(int id) {
+        int i = pos[id];
+        if (i < 0) {
+            i = size++;
+            heap[i] = id;
+            pos[id] = i;
+        }
+        siftUp(i);
+    }
+
+    /**
+     * @return Id with the smallest key (and the smallest id among equal keys), which stays in the heap.
+     */
+    int peek() {
+        return heap[0];
+    }
+
+    /**
+     * @return Id with the smallest key (and the smallest id among equal keys), which is removed.
+     */
+    int poll() {
+        int min = heap[0];
+        pos[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            pos[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    private boolean less(int a, int b) {
+        return keys[a] < keys[b] || (keys[a] == keys[b] && a < b);
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(id, heap[parent])) break;
+            heap[i] = heap[parent];
+            pos[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && less(heap[child + 1], heap[child])) child++;
+            if (!less(heap[child], id)) break;
+            heap[i] = heap[child];
+            pos[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        pos[id] = i;
+    }
+}
@@ -0,0 +1,253 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+import de.uniwue.vnfcpBench.model.CsrGraph;
+import de.uniwue.vnfcpBench.model.LinkPath;
+import de.uniwue.vnfcpBench.model.Node;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The k shortest loopless paths between pairs of nodes (Yen, Management Science 17(11), 1971),
+ * wrt. delay or hops, for path-based heuristics and models that need alternative routes.
+ * <p>
+ * Yen's algorithm finds the (i+1)-th path by branching off the first i paths: for each node of the i-th path
+ * (the spur node), it searches a path from there to the target that avoids the nodes before the spur node and
+ * the next links of all paths found so far that share the same prefix. The shortest of all these candidates
+ * is the next path.
+ * <p>
+ * The paths of each pair are cached, and the candidates are kept, so a later query for more paths
+ * continues where the last one stopped. Queries are thread-safe; queries for different pairs run in parallel,
+ * and queries for paths that were already found do not lock at all. The cache is cleared when the graph
+ * was edited (see {@link CsrGraph#getVersion()}); edits must not run concurrently with queries.
+ * Paths are ordered by their length, then by the other metric, then by their link ids.
+ */
+public class KShortestPaths {
+    private final CsrGraph g;
+    private final boolean byDelay;
+    private final ConcurrentHashMap<Long, PairPaths> cache = new ConcurrentHashMap<>();
+    // Version of the graph that the cached paths belong to:
+    private volatile int version;
+
+    /**
+     * @param g       Graph (the paths refer to its link ids).
+     * @param byDelay Whether to minimize the delay instead of the hops.
+     */
+    public KShortestPaths(CsrGraph g, boolean byDelay) {
+        this.g = g;
+        this.byDelay = byDelay;
+        this.version = g.getVersion();
+    }
+
+    /**
+     * Returns the k shortest loopless paths from source to target (fewer, if there are no more).
+     *
+     * @param source Id of the start node.
+     * @param target Id of the end node.
+     * @param k      Maximum number of paths.
+     * @return Paths, shortest first (a read-only list).
+     */
+    public List<LinkPath> getPaths(int source, int target, int k) {
+        int n = g.getNumNodes();
+        if (source < 0 || source >= n || target < 0 || target >= n) {
+            throw new IllegalArgumentException("source = " + source + ", target = " + target);
+        }
+        if (k < 1) {
+            throw new IllegalArgumentException("k = " + k);
+        }
+        if (version != g.getVersion()) {
+            synchronized (cache) {
+                if (version != g.getVersion()) {
+                    cache.clear();
+                    version = g.getVersion();
+                }
+            }
+        }
+        return cache.computeIfAbsent((long) source * n + target, key -> new PairPaths(source, target)).get(k);
+    }
+
+    /**
+     * Same as {@link #getPaths(int, int, int)}, on nodes.
+     */
+    public List<LinkPath> getPaths(Node source, Node target, int k) {
+        return getPaths(g.getId(source), g.getId(target), k);
+    }
+
+    /**
+     * @return Number of node pairs in the cache.
+     */
+    public int getCachedPairCount() {
+        return cache.size();
+    }
+
+    /**
+     * @return Graph of the paths.
+     */
+    public CsrGraph getGraph() {
+        return g;
+    }
+
+    private double weight(int link) {
+        return byDelay ? g.delay[link] : 1.0;
+    }
+
+    private double length(LinkPath p) {
+        return byDelay ? p.delay : p.getHops();
+    }
+
+    /**
+     * Order of the paths: by length, then by the other metric, then by link ids.
+     */
+    private int compare(LinkPath a, LinkPath b) {
+        int c = Double.compare(length(a), length(b));
+        if (c != 0) return c;
+        c = byDelay ? Integer.compare(a.getHops(), b.getHops()) : Double.compare(a.delay, b.delay);
+        if (c != 0) return c;
+        for (int i = 0; i < Math.min(a.links.length, b.links.length); i++) {
+            c = Integer.compare(a.links[i], b.links[i]);
+            if (c != 0) return c;
+        }
+        return Integer.compare(a.links.length, b.links.length);
+    }
+
+    /**
+     * Paths of one node pair found so far, and the candidates for the next ones.
+     */
+    private class PairPaths {
+        private final int source, target;
+        private final ArrayList<LinkPath> found = new ArrayList<>();
+        private final PriorityQueue<LinkPath> candidates = new PriorityQueue<>(KShortestPaths.this::compare);
+        private final HashSet<LinkPath> seen = new HashSet<>();
+        private boolean started, exhausted;
+        // Published copy of found, for queries without locking:
+        private volatile LinkPath[] paths = new LinkPath[0];
+        private volatile boolean complete;
+
+        PairPaths(int source, int target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        List<LinkPath> get(int k) {
+            LinkPath[] p = paths;
+            if (p.length < k && !complete) {
+                synchronized (this) {
+                    extendTo(k);
+                    paths = found.toArray(new LinkPath[0]);
+                    complete = exhausted;
+                    p = paths;
+                }
+            }
+            return Collections.unmodifiableList(Arrays.asList(p).subList(0, Math.min(k, p.length)));
+        }
+
+        private void extendTo(int k) {
+            Search search = new Search();
+            if (!started) {
+                started = true;
+                LinkPath first = search.find(source, source, target, new int[0]);
+                if (first == null) {
+                    exhausted = true;
+                    return;
+                }
+                found.add(first);
+                seen.add(first);
+            }
+
+            while (found.size() < k && !exhausted) {
+                LinkPath last = found.get(found.size() - 1);
+                int[] nodes = last.getNodes(g);
+                for (int i = 0; i < last.links.length; i++) {
+                    int[] root = Arrays.copyOf(last.links, i);
+
+                    // Next links of the paths with the same root, and the root's nodes before the spur node:
+                    for (LinkPath p : found) {
+                        if (p.links.length > i && prefixEquals(p.links, root)) search.bannedLinks[p.links[i]] = true;
+                    }
+                    for (int j = 0; j < i; j++) {
+                        search.bannedNodes[nodes[j]] = true;
+                    }
+
+                    LinkPath spur = search.find(source, nodes[i], target, root);
+                    if (spur != null && seen.add(spur)) {
+                        candidates.add(spur);
+                    }
+
+                    for (LinkPath p : found) {
+                        if (p.links.length > i) search.bannedLinks[p.links[i]] = false;
+                    }
+                    for (int j = 0; j < i; j++) {
+                        search.bannedNodes[nodes[j]] = false;
+                    }
+                }
+
+                LinkPath next = candidates.poll();
+                if (next == null) {
+                    exhausted = true;
+                }
+                else {
+                    found.add(next);
+                }
+            }
+        }
+    }
+
+    private static boolean prefixEquals(int[] links, int[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (links[i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Dijkstra search that avoids banned nodes and links, with work arrays for all spur searches of one query.
+     */
+    private class Search {
+        final boolean[] bannedNodes = new boolean[g.getNumNodes()];
+        final boolean[] bannedLinks = new boolean[g.getNumLinks()];
+        private final double[] dist = new double[g.getNumNodes()];
+        private final int[] predLink = new int[g.getNumNodes()];
+        private final int[] predNode = new int[g.getNumNodes()];
+        private final IndexedMinHeap q = new IndexedMinHeap(g.getNumNodes());
+
+        /**
+         * @param root Links from the path's source to the spur node.
+         * @return Root, followed by a shortest path from the spur node to the target, or <tt>null</tt>.
+         */
+        LinkPath find(int source, int spur, int target, int[] root) {
+            Arrays.fill(dist, Double.POSITIVE_INFINITY);
+            dist[spur] = 0.0;
+            q.reset(dist);
+            q.insertOrDecrease(spur);
+
+            while (!q.isEmpty()) {
+                int u = q.poll();
+                if (u == target) break;
+                for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                    int v = g.targets[a];
+                    int l = g.arcLinks[a];
+                    if (bannedNodes[v] || bannedLinks[l]) continue;
+                    double d = dist[u] + weight(l);
+                    if (dist[v] > d) {
+                        dist[v] = d;
+                        predLink[v] = l;
+                        predNode[v] = u;
+                        q.insertOrDecrease(v);
+                    }
+                }
+            }
+            if (dist[target] == Double.POSITIVE_INFINITY) return null;
+
+            int spurHops = 0;
+            for (int v = target; v != spur; v = predNode[v]) spurHops++;
+            int[] links = Arrays.copyOf(root, root.length + spurHops);
+            for (int v = target, i = links.length - 1; v != spur; v = predNode[v], i--) {
+                links[i] = predLink[v];
+            }
+
+            double delay = 0.0;
+            for (int l : links) delay += g.delay[l];
+            return new LinkPath(source, target, links, delay);
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+import de.uniwue.vnfcpBench.model.CsrGraph;
+import de.uniwue.vnfcpBench.model.LinkPath;
+import de.uniwue.vnfcpBench.model.NetworkGraph;
+import de.uniwue.vnfcpBench.model.Node;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Distance oracle for large topologies, on which all-pairs tables do not fit into memory and full
+ * searches are too slow for inner loops (ALT: A*, landmarks and the triangle inequality;
+ * Goldberg and Harrelson, SODA 2005).
+ * <p>
+ * A few nodes are selected as landmarks (farthest-point selection wrt. hops), and the distances from and to
+ * each landmark are computed once, in parallel. By the triangle inequality, for every landmark L,
+ * d(s,t) &ge; d(L,t) - d(L,s) and d(s,t) &ge; d(s,L) - d(t,L), so {@link #lowerBound(int, int)} costs
+ * O(#landmarks) array reads, which are stored per node so that they are adjacent in memory.
+ * These bounds can prune candidates directly, and they guide the A* search of the exact queries
+ * ({@link #distance(int, int)}, {@link #shortestPath(int, int)}) towards the target.
+ * <p>
+ * The oracle refers to the graph at construction time; it must be rebuilt after the graph was edited
+ * (queries then throw an {@link IllegalStateException}).
+ * Queries are thread-safe, and count their number, time and settled nodes.
+ */
+public class LandmarkOracle {
+    private final CsrGraph g;
+    private final boolean byDelay;
+    private final int[] landmarks;
+    // Distances from and to each landmark, indexed by [node * landmarks.length + landmark] (the same array, if all links are undirected):
+    private final double[] from, to;
+    private final long buildMillis;
+    // Version of the graph that the distances belong to:
+    private final int version;
+
+    // Work arrays of the A* searches of each thread:
+    private final ThreadLocal<Search> searches;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+    private final LongAdder settled = new LongAdder();
+
+    /**
+     * @param ng           Graph.
+     * @param byDelay      Whether to minimize the delay instead of the hops.
+     * @param numLandmarks Number of landmarks (at most the number of nodes are used).
+     */
+    public LandmarkOracle(NetworkGraph ng, boolean byDelay, int numLandmarks) {
+        this(ng.getCsr(), byDelay, numLandmarks);
+    }
+
+    /**
+     * @param g            Graph (with non-negative delays).
+     * @param byDelay      Whether to minimize the delay instead of the hops.
+     * @param numLandmarks Number of landmarks (at most the number of nodes are used).
+     */
+    public LandmarkOracle(CsrGraph g, boolean byDelay, int numLandmarks) {
+        if (numLandmarks < 1) {
+            throw new IllegalArgumentException("numLandmarks = " + numLandmarks);
+        }
+        long start = System.currentTimeMillis();
+        this.g = g;
+        this.byDelay = byDelay;
+        this.version = g.getVersion();
+        this.landmarks = selectLandmarks(g, Math.min(numLandmarks, g.getNumNodes()));
+        this.searches = ThreadLocal.withInitial(Search::new);
+
+        boolean undirected = true;
+        for (int l = 0; l < g.getNumLinks(); l++) {
+            if (g.linkNode1[l] >= 0 && !g.isUndirected(l)) undirected = false;
+        }
+        this.from = distances(false);
+        this.to = undirected ? from : distances(true);
+        this.buildMillis = System.currentTimeMillis() - start;
+    }
+
+    /**
+     * Farthest-point selection: starts with the node farthest from node 0, then repeatedly adds the node
+     * with the most hops to its nearest landmark (unreachable nodes first, so every component gets one).
+     */
+    private static int[] selectLandmarks(CsrGraph g, int k) {
+        int n = g.getNumNodes();
+        if (n == 0) return new int[0];
+
+        float[] nearest = FlowUtils.bfs(g, 0).hops.clone();
+        int[] selected = new int[k];
+        int count = 0;
+        while (count < k) {
+            int best = 0;
+            for (int v = 1; v < n; v++) {
+                if (nearest[v] > nearest[best]) best = v;
+            }
+            // All nodes are landmarks or next to one:
+            if (count > 0 && nearest[best] == 0) break;
+
+            selected[count++] = best;
+            float[] hops = FlowUtils.bfs(g, best).hops;
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], hops[v]);
+            }
+            nearest[best] = 0;
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * Searches from (or, backwards, to) all landmarks in parallel, and interleaves the results per node.
+     */
+    private double[] distances(boolean reverse) {
+        int n = g.getNumNodes(), k = landmarks.length;
+        double[][] rows = new double[k][];
+        IntStream.range(0, k).parallel().forEach(i -> rows[i] = search(landmarks[i], reverse));
+
+        double[] dist = new double[n * k];
+        IntStream.range(0, n).parallel().forEach(v -> {
+            for (int i = 0; i < k; i++) {
+                dist[v * k + i] = rows[i][v];
+            }
+        });
+        return dist;
+    }
+
+    /**
+     * Dijkstra search (with unit weights, if not by delay) along the arcs or against them.
+     *
+     * @return Distance of each node from the root (or to it).
+     */
+    private double[] search(int root, boolean reverse) {
+        int n = g.getNumNodes();
+        int[] offsets = reverse ? g.inOffsets : g.offsets;
+        int[] heads = reverse ? g.sources : g.targets;
+        int[] links = reverse ? g.inArcLinks : g.arcLinks;
+
+        double[] dist = new double[n];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[root] = 0.0;
+        IndexedMinHeap q = new IndexedMinHeap(n);
+        q.reset(dist);
+        q.insertOrDecrease(root);
+        while (!q.isEmpty()) {
+            int u = q.poll();
+            for (int a = offsets[u]; a < offsets[u + 1]; a++) {
+                int v = heads[a];
+                double d = dist[u] + weight(links[a]);
+                if (dist[v] > d) {
+                    dist[v] = d;
+                    q.insertOrDecrease(v);
+                }
+            }
+        }
+        return dist;
+    }
+
+    private double weight(int link) {
+        return byDelay ? g.delay[link] : 1.0;
+    }
+
+    /**
+     * @param source Id of the start node.
+     * @param target Id of the end node.
+     * @return Lower bound of the distance from source to target (infinity, if the target is unreachable).
+     */
+    public double lowerBound(int source, int target) {
+        checkVersion();
+        int k = landmarks.length;
+        int s = source * k, t = target * k;
+        double bound = 0.0;
+        for (int i = 0; i < k; i++) {
+            // Differences of two infinite distances are NaN, and ignored:
+            double d = from[t + i] - from[s + i];
+            if (d > bound) bound = d;
+            d = to[s + i] - to[t + i];
+            if (d > bound) bound = d;
+        }
+        return bound;
+    }
+
+    /**
+     * Finds the exact distance by an A* search that is guided by the landmark bounds.
+     *
+     * @param source Id of the start node.
+     * @param target Id of the end node.
+     * @return Delay or number of hops of a shortest path (infinity, if the target is unreachable).
+     */
+    public double distance(int source, int target) {
+        checkVersion();
+        Search s = searches.get();
+        return s.run(source, target) ? s.dist[target] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Same as {@link #distance(int, int)}, on nodes.
+     */
+    public double distance(Node source, Node target) {
+        return distance(g.getId(source), g.getId(target));
+    }
+
+    /**
+     * Same as {@link #distance(int, int)}, but returns the path.
+     *
+     * @return Path, or <tt>null</tt> if the target is unreachable.
+     */
+    public LinkPath shortestPath(int source, int target) {
+        checkVersion();
+        Search s = searches.get();
+        return s.run(source, target) ? s.toPath(source, target) : null;
+    }
+
+    private void checkVersion() {
+        if (g.getVersion() != version) {
+            throw new IllegalStateException("graph was edited after the oracle was built");
+        }
+    }
+
+    /**
+     * A* search with the landmark bounds as (consistent) heuristic. Entries of a node are only valid
+     * if its {@code seen} entry equals the search number, so the arrays need not be cleared between searches.
+     */
+    private class Search {
+        final double[] dist = new double[g.getNumNodes()];
+        // Distance plus bound, the key of the heap:
+        private final double[] estimate = new double[g.getNumNodes()];
+        private final double[] bound = new double[g.getNumNodes()];
+        private final int[] predLink = new int[g.getNumNodes()];
+        private final int[] seen = new int[g.getNumNodes()];
+        private final IndexedMinHeap q = new IndexedMinHeap(g.getNumNodes());
+        private int epoch;
+
+        /**
+         * @return Whether the target is reachable.
+         */
+        boolean run(int source, int target) {
+            int n = g.getNumNodes();
+            if (source < 0 || source >= n || target < 0 || target >= n) {
+                throw new IllegalArgumentException("source = " + source + ", target = " + target);
+            }
+            long start = System.nanoTime();
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(seen, 0);
+                epoch = 1;
+            }
+
+            boolean found = false;
+            long numSettled = 0;
+            if (visit(source, target)) {
+                dist[source] = 0.0;
+                predLink[source] = -1;
+                estimate[source] = bound[source];
+                q.reset(estimate);
+                q.insertOrDecrease(source);
+                while (!q.isEmpty()) {
+                    int u = q.poll();
+                    numSettled++;
+                    if (u == target) {
+                        found = true;
+                        break;
+                    }
+                    for (int a = g.offsets[u]; a < g.offsets[u + 1]; a++) {
+                        int v = g.targets[a];
+                        // Nodes from which the target is unreachable are skipped:
+                        if (!visit(v, target)) continue;
+                        double d = dist[u] + weight(g.arcLinks[a]);
+                        if (dist[v] > d) {
+                            dist[v] = d;
+                            estimate[v] = d + bound[v];
+                            predLink[v] = g.arcLinks[a];
+                            q.insertOrDecrease(v);
+                        }
+                    }
+                }
+            }
+
+            queries.increment();
+            settled.add(numSettled);
+            queryNanos.add(System.nanoTime() - start);
+            return found;
+        }
+
+        /**
+         * Initializes the node's entries on its first visit in this search.
+         *
+         * @return Whether the target may be reachable from the node.
+         */
+        private boolean visit(int v, int target) {
+            if (seen[v] != epoch) {
+                seen[v] = epoch;
+                dist[v] = Double.POSITIVE_INFINITY;
+                bound[v] = lowerBound(v, target);
+            }
+            return bound[v] != Double.POSITIVE_INFINITY;
+        }
+
+        LinkPath toPath(int source, int target) {
+            int hops = 0;
+            for (int v = target; v != source; v = g.getOther(predLink[v], v)) hops++;
+
+            int[] links = new int[hops];
+            for (int v = target, i = hops - 1; v != source; v = g.getOther(predLink[v], v), i--) {
+                links[i] = predLink[v];
+            }
+
+            double delay = 0.0;
+            for (int l : links) delay += g.delay[l];
+            return new LinkPath(source, target, links, delay);
+        }
+    }
+
+    /**
+     * @return Ids of the landmarks, in the order they were selected.
+     */
+    public int[] getLandmarks() {
+        return landmarks.clone();
+    }
+
+    /**
+     * @return Graph of the oracle.
+     */
+    public CsrGraph getGraph() {
+        return g;
+    }
+
+    /**
+     * @return Approximate heap usage of the landmark distances in bytes (without the work arrays of the searches).
+     */
+    public long getMemoryBytes() {
+        long bytes = 8L * from.length + 4L * landmarks.length;
+        return (to == from) ? bytes : bytes + 8L * to.length;
+    }
+
+    /**
+     * @return Time to select the landmarks and compute their distances. (ms)
+     */
+    public long getBuildMillis() {
+        return buildMillis;
+    }
+
+    /**
+     * @return Number of exact queries so far.
+     */
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    /**
+     * @return Average time of an exact query. (μs)
+     */
+    public double getAverageQueryMicros() {
+        long q = queries.sum();
+        return (q > 0) ? queryNanos.sum() / 1e3 / q : 0.0;
+    }
+
+    /**
+     * @return Average number of nodes that an exact query settled.
+     */
+    public double getAverageSettled() {
+        long q = queries.sum();
+        return (q > 0) ? (double) settled.sum() / q : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return "LandmarkOracle{" +
+                "landmarks=" + landmarks.length +
+                ", nodes=" + g.getNumNodes() +
+                ", byDelay=" + byDelay +
+                ", memoryBytes=" + getMemoryBytes() +
+                ", buildMillis=" + buildMillis +
+                ", queries=" + getQueryCount() +
+                ", avgQueryMicros=" + getAverageQueryMicros() +
+                ", avgSettled=" + getAverageSettled() +
+                '}';
+    }
+}
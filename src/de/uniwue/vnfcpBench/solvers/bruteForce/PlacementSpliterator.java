@@ -0,0 +1,170 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+import de.uniwue.vnfcpBench.model.Node;
+import de.uniwue.vnfcpBench.model.ProblemInstance;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily enumerates all candidate placements of a {@link ProblemInstance}: every VNF of every request
+ * on every CPU location, in the same order as {@link BruteForceSolver} (request by request, VNF by VNF,
+ * the last VNF changing fastest). Each placement is a fresh {@code Node[request][vnf]} array, as in
+ * {@link de.uniwue.vnfcpBench.model.solution.GridGraphSolution#vnfSeqs}.
+ * <p>
+ * The placement space is never materialized. A spliterator covers the placements whose first
+ * {@code depth} positions equal its current ones and whose position {@code depth} lies below {@code hi}.
+ * {@link #trySplit()} hands off the lower half of the remaining values of that position (including the
+ * current, possibly partly done one) and continues with the upper half. If only one value is left, it
+ * descends a level first, so parallel streams split evenly even after iteration has started.
+ * <p>
+ * Placements are not checked for delay, bandwidth or CPU capacity; that is up to the consumer.
+ */
+public class PlacementSpliterator implements Spliterator<Node[][]> {
+    private final Node[] cpuLocations;
+    private final int[] chainLengths;
+    private final boolean sized;
+
+    // Current placement (CPU location index per position), the first free position and its end:
+    private final int[] digits;
+    private int depth;
+    private int hi;
+    private boolean exhausted;
+
+    /**
+     * @param cpuLocations CPU locations to place the VNFs on.
+     * @param chainLengths Number of VNFs of each request.
+     */
+    public PlacementSpliterator(Node[] cpuLocations, int[] chainLengths) {
+        if (cpuLocations.length == 0) {
+            throw new IllegalArgumentException("cpuLocations.length = 0");
+        }
+        this.cpuLocations = cpuLocations;
+        this.chainLengths = chainLengths.clone();
+        this.digits = new int[Arrays.stream(chainLengths).sum()];
+        this.depth = 0;
+        this.hi = cpuLocations.length;
+        this.exhausted = false;
+        this.sized = Math.pow(cpuLocations.length, digits.length) < 0x1p62;
+    }
+
+    private PlacementSpliterator(PlacementSpliterator parent, int hi) {
+        this.cpuLocations = parent.cpuLocations;
+        this.chainLengths = parent.chainLengths;
+        this.sized = parent.sized;
+        this.digits = parent.digits.clone();
+        this.depth = parent.depth;
+        this.hi = hi;
+        this.exhausted = false;
+    }
+
+    /**
+     * Placements of the requests of the instance on its nodes with CPU capacity.
+     */
+    public PlacementSpliterator(ProblemInstance inst) {
+        this(getCpuLocations(inst), Arrays.stream(inst.reqs).mapToInt(r -> r.vnfSequence.length).toArray());
+    }
+
+    /**
+     * @return Nodes with CPU capacity, in the order that {@link BruteForceSolver} uses.
+     */
+    public static Node[] getCpuLocations(ProblemInstance inst) {
+        return inst.ng.getNodes().values().stream().filter(n -> n.cpuCapacity > 0.0).distinct().toArray(Node[]::new);
+    }
+
+    /**
+     * Returns a lazy stream of all candidate placements of the instance.
+     *
+     * @param inst     Problem instance.
+     * @param parallel Whether the stream is parallel.
+     * @return Stream of {@code Node[request][vnf]} placements.
+     */
+    public static Stream<Node[][]> stream(ProblemInstance inst, boolean parallel) {
+        return StreamSupport.stream(new PlacementSpliterator(inst), parallel);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Node[][]> action) {
+        if (exhausted) return false;
+        action.accept(current());
+        advance();
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Node[][]> action) {
+        while (!exhausted) {
+            action.accept(current());
+            advance();
+        }
+    }
+
+    private Node[][] current() {
+        Node[][] placement = new Node[chainLengths.length][];
+        int p = 0;
+        for (int i = 0; i < chainLengths.length; i++) {
+            placement[i] = new Node[chainLengths[i]];
+            for (int j = 0; j < chainLengths[i]; j++) {
+                placement[i][j] = cpuLocations[digits[p++]];
+            }
+        }
+        return placement;
+    }
+
+    /**
+     * Counts the free positions up like an odometer.
+     */
+    private void advance() {
+        for (int p = digits.length - 1; p > depth; p--) {
+            if (++digits[p] < cpuLocations.length) return;
+            digits[p] = 0;
+        }
+        if (digits.length == 0 || ++digits[depth] >= hi) {
+            exhausted = true;
+        }
+    }
+
+    @Override
+    public Spliterator<Node[][]> trySplit() {
+        if (exhausted || digits.length == 0) return null;
+
+        // Only the current value of this position is left, so it is fixed from now on:
+        while (hi - digits[depth] <= 1) {
+            if (depth + 1 >= digits.length) return null;
+            depth++;
+            hi = cpuLocations.length;
+        }
+
+        // The prefix keeps the current, possibly partly done value:
+        int mid = digits[depth] + (hi - digits[depth]) / 2;
+        PlacementSpliterator prefix = new PlacementSpliterator(this, mid);
+        digits[depth] = mid;
+        Arrays.fill(digits, depth + 1, digits.length, 0);
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (exhausted) return 0;
+        if (digits.length == 0) return 1;
+        if (!sized) return Long.MAX_VALUE;
+
+        // Remaining = (hi - digits[depth]) full subtrees, minus what is done of the current one:
+        long size = hi - digits[depth];
+        long done = 0;
+        for (int p = depth + 1; p < digits.length; p++) {
+            size *= cpuLocations.length;
+            done = done * cpuLocations.length + digits[p];
+        }
+        return size - done;
+    }
+
+    @Override
+    public int characteristics() {
+        int c = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+        return sized ? c | SIZED | SUBSIZED : c;
+    }
+}
@@ -0,0 +1,234 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Progress and throughput of a {@link BruteForceSolver} run.
+ * <p>
+ * Workers count locally and add their counts to striped counters every few thousand placements.
+ * A background thread samples the counters periodically and prints them (and appends them to a CSV file,
+ * if set), so the enumeration threads never do any I/O. While the run is active, the metrics are also
+ * registered as JMX MBean {@code de.uniwue.vnfcpBench:type=BruteForceSolver,id=...}.
+ */
+public class SolverMetrics implements SolverMetricsMBean {
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+    private static final String CSV_HEADER = "time,elapsed_s,progress,evaluated,placements_per_s,"
+            + "rejected_delay,rejected_link,rejected_cpu,skipped_dominated,frontier_size,eta_s";
+
+    private final LongAdder evaluated = new LongAdder();
+    private final DoubleAdder done = new DoubleAdder();
+    private final DoubleAdder[] rejected;
+    private volatile int frontierSize;
+    private volatile double total;
+    private volatile double startDone;
+    private final long startNanos;
+
+    private ScheduledExecutorService reporter;
+    private PrintWriter csv;
+    private ObjectName name;
+
+    /**
+     * @param total Number of placements of the run.
+     */
+    SolverMetrics(double total) {
+        this.total = total;
+        this.rejected = new DoubleAdder[BruteForceSolver.PRUNED_DOMINATED + 1];
+        for (int i = 0; i < rejected.length; i++) {
+            rejected[i] = new DoubleAdder();
+        }
+        this.startNanos = System.nanoTime();
+    }
+
+    void setTotal(double total) {
+        this.total = total;
+    }
+
+    /**
+     * Counts placements that were done before the run started (e.g. restored from a checkpoint).
+     * They count for the progress, but not for the throughput.
+     */
+    void addRestored(double placements) {
+        done.add(placements);
+        startDone += placements;
+    }
+
+    /**
+     * Registers the MBean and starts the background reporter.
+     *
+     * @param intervalMillis Milliseconds between two reports (0 = no reports).
+     * @param csvFile        File to append the reports to, or {@code null}.
+     */
+    void start(long intervalMillis, Path csvFile) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            name = new ObjectName("de.uniwue.vnfcpBench:type=BruteForceSolver,id=" + NEXT_ID.incrementAndGet());
+            server.registerMBean(this, name);
+
+            if (csvFile != null) {
+                boolean header = !Files.exists(csvFile) || Files.size(csvFile) == 0;
+                csv = new PrintWriter(Files.newBufferedWriter(csvFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+                if (header) csv.println(CSV_HEADER);
+            }
+        }
+        catch (JMException | IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        if (intervalMillis > 0) {
+            reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "BruteForceSolver metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            reporter.scheduleAtFixedRate(this::report, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the reporter after a last report and unregisters the MBean.
+     */
+    void stop() {
+        try {
+            if (reporter != null) {
+                reporter.shutdown();
+                reporter.awaitTermination(1, TimeUnit.MINUTES);
+                report();
+            }
+            if (csv != null) {
+                csv.close();
+            }
+            if (name != null) {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (JMException e) {
+            throw new RuntimeException(e);
+        }
+        finally {
+            reporter = null;
+            csv = null;
+            name = null;
+        }
+    }
+
+    /**
+     * Adds the counts of a worker.
+     *
+     * @param evaluatedPlacements Number of completely evaluated placements.
+     * @param donePlacements      Number of evaluated and skipped placements.
+     * @param rejectedPlacements  Rejected placements per cause (reset to 0).
+     * @param frontierSize        Current size of the worker's frontier.
+     */
+    void add(long evaluatedPlacements, double donePlacements, double[] rejectedPlacements, int frontierSize) {
+        evaluated.add(evaluatedPlacements);
+        done.add(donePlacements);
+        for (int i = 0; i < rejected.length; i++) {
+            if (rejectedPlacements[i] != 0.0) {
+                rejected[i].add(rejectedPlacements[i]);
+                rejectedPlacements[i] = 0.0;
+            }
+        }
+        this.frontierSize = frontierSize;
+    }
+
+    void setFrontierSize(int frontierSize) {
+        this.frontierSize = frontierSize;
+    }
+
+    /**
+     * @return Number of evaluated and skipped placements, including the ones done before the run.
+     */
+    double getDone() {
+        return done.sum();
+    }
+
+    private void report() {
+        double progress = getProgress();
+        String line = String.format(Locale.US, "[%s] Tested %.2f%% of solutions (%.0f placements/s, frontier %d, ETA %.0f s).",
+                LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")),
+                progress * 100.0, getPlacementsPerSecond(), getFrontierSize(), getEtaSeconds());
+        System.out.println(line);
+
+        if (csv != null) {
+            csv.println(String.format(Locale.US, "%s,%.3f,%.6f,%d,%.1f,%.0f,%.0f,%.0f,%.0f,%d,%.0f",
+                    LocalTime.now().format(DateTimeFormatter.ISO_LOCAL_TIME), getElapsedSeconds(), progress,
+                    getEvaluatedPlacements(), getPlacementsPerSecond(), getRejectedByDelay(), getRejectedByLink(),
+                    getRejectedByCpu(), getSkippedDominated(), getFrontierSize(), getEtaSeconds()));
+            csv.flush();
+        }
+    }
+
+    @Override
+    public long getEvaluatedPlacements() {
+        return evaluated.sum();
+    }
+
+    @Override
+    public double getPlacementsPerSecond() {
+        double elapsed = getElapsedSeconds();
+        return (elapsed > 0.0) ? evaluated.sum() / elapsed : 0.0;
+    }
+
+    @Override
+    public double getProgress() {
+        return (total > 0.0) ? Math.min(1.0, done.sum() / total) : 1.0;
+    }
+
+    @Override
+    public double getRejectedByDelay() {
+        return rejected[BruteForceSolver.PRUNED_DELAY].sum();
+    }
+
+    @Override
+    public double getRejectedByLink() {
+        return rejected[BruteForceSolver.PRUNED_LINK].sum();
+    }
+
+    @Override
+    public double getRejectedByCpu() {
+        return rejected[BruteForceSolver.PRUNED_CPU].sum();
+    }
+
+    @Override
+    public double getSkippedDominated() {
+        return rejected[BruteForceSolver.PRUNED_DOMINATED].sum();
+    }
+
+    @Override
+    public int getFrontierSize() {
+        return frontierSize;
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        return (System.nanoTime() - startNanos) / 1e9;
+    }
+
+    @Override
+    public double getEtaSeconds() {
+        double d = done.sum();
+        if (d >= total) return 0.0;
+        if (d <= startDone) return Double.NaN;
+        return Math.max(0.0, getElapsedSeconds() * (total - d) / (d - startDone));
+    }
+}
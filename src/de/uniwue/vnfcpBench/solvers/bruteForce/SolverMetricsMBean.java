@@ -0,0 +1,56 @@
+package de.uniwue.vnfcpBench.solvers.bruteForce;
+
+/**
+ * JMX view of the {@link SolverMetrics} of a running {@link BruteForceSolver}.
+ */
+public interface SolverMetricsMBean {
+    /**
+     * @return Number of placements that were evaluated completely.
+     */
+    long getEvaluatedPlacements();
+
+    /**
+     * @return Evaluated placements per second, since the start of the run.
+     */
+    double getPlacementsPerSecond();
+
+    /**
+     * @return Fraction of the placement space that is done (evaluated or skipped), between 0 and 1.
+     */
+    double getProgress();
+
+    /**
+     * @return Placements rejected because of a request's delay (including skipped subtrees).
+     */
+    double getRejectedByDelay();
+
+    /**
+     * @return Placements rejected because of a link's bandwidth (including skipped subtrees).
+     */
+    double getRejectedByLink();
+
+    /**
+     * @return Placements rejected because of a node's CPU capacity (including skipped subtrees).
+     */
+    double getRejectedByCpu();
+
+    /**
+     * @return Placements skipped because branch-and-bound found them to be dominated.
+     */
+    double getSkippedDominated();
+
+    /**
+     * @return Size of the frontier of the last worker that reported (the final frontier after the run).
+     */
+    int getFrontierSize();
+
+    /**
+     * @return Seconds since the start of the run.
+     */
+    double getElapsedSeconds();
+
+    /**
+     * @return Estimated seconds until the run completes, or NaN if nothing is done yet.
+     */
+    double getEtaSeconds();
+}
@@ -4,6 +4,7 @@ import de.uniwue.vnfcpBench.model.*;
 import de.uniwue.vnfcpBench.model.factory.TopologyFileReader;
 import de.uniwue.vnfcpBench.model.factory.TrafficRequestsReader;
 import de.uniwue.vnfcpBench.model.factory.VnfLibReader;
+import de.uniwue.vnfcpBench.solvers.bruteForce.BinPacking;
 import gurobi.*;
 
 import java.io.FileOutputStream;
@@ -46,7 +47,9 @@ public class MinimizeCpu {
         }
         maxInst = 0;
         for (VNF v : pi.vnfLib.getAllVnfs()) {
-            maxInst = Math.max(maxInst, firstFitPacking(requestsPerVnf.get(v), v.processingCapacity));
+            double[] demands = requestsPerVnf.get(v).stream().mapToDouble(Double::doubleValue).toArray();
+            BinPacking.sortDescending(demands, demands.length);
+            maxInst = Math.max(maxInst, BinPacking.firstFit(demands, demands.length, v.processingCapacity));
         }
         requestsPerVnf.clear();
         requestsPerVnf = null;
@@ -542,36 +545,6 @@ public class MinimizeCpu {
         }
     }
 
-    public static int firstFitPacking(ArrayList<Double> elements, double binSize) {
-        ArrayList<Double> bins = new ArrayList<>();
-
-        // Sort bandwidth demands (desc):
-        elements.sort(Comparator.reverseOrder());
-
-        for (Double d : elements) {
-            boolean platzGefunden = false;
-            int aktuellerBin = 0;
-            while (!platzGefunden) {
-                // Current bin does not exist? -> Create new one, add request:
-                if (aktuellerBin == bins.size()) {
-                    bins.add(d);
-                    platzGefunden = true;
-                }
-                // Request fits into current bin:
-                else if (bins.get(aktuellerBin) + d <= binSize) {
-                    bins.set(aktuellerBin, bins.get(aktuellerBin) + d);
-                    platzGefunden = true;
-                }
-                // Request does not fit, but more bins exist:
-                else {
-                    aktuellerBin++;
-                }
-            }
-        }
-
-        return bins.size();
-    }
-
     public static void exampleModel() {
         try {
             GRBEnv    env   = new GRBEnv("mip1.log");